@@ -0,0 +1,243 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+// Medições de desempenho dos caminhos quentes do simulador, em Java puro (sem dependências).
+// Uso: java -cp bin Benchmarks [filtro...]
+// Cada medição roda algumas rodadas de aquecimento (para o JIT da JVM estabilizar) e depois
+// rodadas medidas de duração fixa; o resultado é a média de operações por segundo e o desvio
+// entre as rodadas. Os filtros selecionam medições pelo nome (ex.: "gm/" ou "interpretador").
+// Ajustes: -Dbench.aquecimento=N, -Dbench.rodadas=N, -Dbench.ms=N (duração de cada rodada).
+// As mesmas operações rodam sob o JMH (medicoes/SisOpJmh.java, via pom.xml).
+public class Benchmarks {
+
+    private static final int AQUECIMENTO = Integer.getInteger("bench.aquecimento", 3);
+    private static final int RODADAS = Integer.getInteger("bench.rodadas", 5);
+    private static final int MS_RODADA = Integer.getInteger("bench.ms", 500);
+    private static final int TAM_PAG = 16;
+
+    // Destino dos resultados, para que o JIT da JVM não elimine o trabalho medido
+    private static volatile long sumidouro;
+
+    // Uma operação medida: executa uma vez e devolve quantas unidades de trabalho fez
+    interface Operacao {
+        long executa();
+    }
+
+    private static class Medicao {
+        final String nome, unidade;
+        final Operacao op;
+        Medicao(String nome, String unidade, Operacao op) { this.nome = nome; this.unidade = unidade; this.op = op; }
+    }
+
+    public static void main(String[] args) {
+        List<Medicao> medicoes = medicoes();
+        System.out.println(String.format("%-40s %16s %10s  %s", "MEDIÇÃO", "OPS/S", "DESVIO", "UNIDADE"));
+        for (Medicao m : medicoes) {
+            if (!selecionada(m.nome, args)) continue;
+            mede(m);
+        }
+        System.exit(0);   // as threads de disco e E/S do SisOp não são daemon
+    }
+
+    // Prepara todas as medições (com o diagnóstico silenciado)
+    private static List<Medicao> medicoes() {
+        SisOp_Diag.silencia();
+        List<Medicao> medicoes = new ArrayList<>();
+        interpretador(medicoes, true);
+        interpretador(medicoes, false);
+        mmu(medicoes, 16);
+        mmu(medicoes, 0);
+        gm(medicoes, 1 << 16);
+        paginas(medicoes);
+        escalonador(medicoes, 8);
+        return medicoes;
+    }
+
+    // Operações das medições por nome, para outro harness (o JMH as obtém por reflexão, já que
+    // não enxerga classes do pacote padrão). Cada chamada devolve as unidades de trabalho feitas.
+    public static Map<String, LongSupplier> operacoes() {
+        Map<String, LongSupplier> ops = new LinkedHashMap<>();
+        for (Medicao m : medicoes()) ops.put(m.nome, m.op::executa);
+        return ops;
+    }
+
+    private static boolean selecionada(String nome, String[] filtros) {
+        if (filtros.length == 0) return true;
+        for (String f : filtros) {
+            if (nome.contains(f)) return true;
+        }
+        return false;
+    }
+
+    // Roda o aquecimento e as rodadas medidas de uma operação e imprime a vazão
+    private static void mede(Medicao m) {
+        for (int i = 0; i < AQUECIMENTO; i++) rodada(m.op);
+        double[] vazao = new double[RODADAS];
+        double soma = 0;
+        for (int i = 0; i < RODADAS; i++) {
+            vazao[i] = rodada(m.op);
+            soma += vazao[i];
+        }
+        double media = soma / RODADAS, var = 0;
+        for (double v : vazao) var += (v - media) * (v - media);
+        double desvio = RODADAS > 1 ? Math.sqrt(var / (RODADAS - 1)) : 0;
+        System.out.println(String.format("%-40s %16.0f %9.1f%%  %s", m.nome, media, media == 0 ? 0 : 100 * desvio / media, m.unidade));
+    }
+
+    // Executa a operação repetidamente por MS_RODADA e devolve unidades por segundo
+    private static double rodada(Operacao op) {
+        long fim = System.nanoTime() + MS_RODADA * 1_000_000L;
+        long unidades = 0, inicio = System.nanoTime(), agora;
+        do {
+            unidades += op.executa();
+            agora = System.nanoTime();
+        } while (agora < fim);
+        return unidades * 1e9 / (agora - inicio);
+    }
+
+    private static SisOp sistema;
+
+    // Sistema completo (um só por execução), sem log, com 64 frames e sem TLB (o padrão)
+    private static SisOp sistema() {
+        if (sistema == null) {
+            Hardware.HW hw = new Hardware.HW(64 * TAM_PAG, TAM_PAG, 1, 0, 0);
+            sistema = new SisOp(hw, null);
+            sistema.logger.setAtivo(false);
+        }
+        return sistema;
+    }
+
+    // Vazão do interpretador (instruções por segundo) em cada programa de exemplo, com a imagem
+    // carregada em frames contíguos e todas as páginas válidas (sem faltas nem escalonamento).
+    // A execução vai até o primeiro STOP ou SYSCALL.
+    private static void interpretador(List<Medicao> medicoes, boolean comJit) {
+        Sistema.Programs progs = new Sistema.Programs();
+        for (Sistema.Programs.Program prog : progs.progs) {
+            if (prog == null) continue;
+            long[] imagem = Hardware.Memory.pack(prog.code);
+            boolean[] fim = new boolean[imagem.length];
+            for (int i = 0; i < imagem.length; i++) {
+                Hardware.CPU.Opcode opc = Hardware.Memory.opcode(imagem[i]);
+                fim[i] = opc == Hardware.CPU.Opcode.STOP || opc == Hardware.CPU.Opcode.SYSCALL;
+            }
+            // hardware próprio (a memória é do programa), com os tratadores do sistema compartilhado
+            Hardware.HW hw = new Hardware.HW(1024, TAM_PAG, 1, 16, comJit ? Integer.getInteger("jit", 50) : 0);
+            Hardware.CPU cpu = hw.cpus[0];
+            cpu.setAddressOfHandlers(sistema().interruptHandling, sistema().sysCallHandling);
+            cpu.setUtilities(sistema().utils);
+            cpu.setMMU(tabelaIdentidade((imagem.length + TAM_PAG - 1) / TAM_PAG), 1);
+            hw.mem.copyIn(imagem, 0, 0, imagem.length);
+            medicoes.add(new Medicao((comJit ? "interpretador/" : "interpretador-sem-jit/") + prog.name, "instruções", () -> {
+                // restaura só as palavras alteradas (dados), preservando os blocos já traduzidos
+                for (int i = 0; i < imagem.length; i++) {
+                    if (hw.mem.pos[i] != imagem[i]) hw.mem.copyIn(imagem, i, i, 1);
+                }
+                cpu.setContext(0, new int[10]);
+                cpu.resetInstructionCounter();
+                cpu.start();
+                int limite = 1_000_000;
+                while (--limite > 0) {
+                    int pc = cpu.getContextPC();
+                    if (pc < 0 || pc >= fim.length || fim[pc]) break;
+                    cpu.step(Integer.MAX_VALUE);
+                }
+                return cpu.getInstructionCounter();
+            }));
+        }
+    }
+
+    // Tabela de páginas em que a página i está no frame i
+    private static Hardware.PageTableEntry[] tabelaIdentidade(int paginas) {
+        Hardware.PageTableEntry[] tabela = new Hardware.PageTableEntry[paginas];
+        for (int i = 0; i < paginas; i++) {
+            tabela[i] = new Hardware.PageTableEntry();
+            tabela[i].valid = true;
+            tabela[i].frameNumber = i;
+        }
+        return tabela;
+    }
+
+    // Custo da tradução de endereços (traduções por segundo), percorrendo 64 páginas com TLB
+    // (entradasTlb > 0, acertos e faltas) ou só pela tabela de páginas
+    private static void mmu(List<Medicao> medicoes, int entradasTlb) {
+        Hardware.HW hw = new Hardware.HW(64 * TAM_PAG, TAM_PAG, 1, entradasTlb, 0);
+        Hardware.CPU cpu = hw.cpus[0];
+        cpu.setMMU(tabelaIdentidade(64), 1);
+        int[] enderecos = new int[4096];
+        Random r = new Random(42);
+        for (int i = 0; i < enderecos.length; i++) {
+            // 90% dos acessos em 8 páginas "quentes", o resto espalhado
+            int pag = r.nextInt(10) < 9 ? r.nextInt(8) : r.nextInt(64);
+            enderecos[i] = pag * TAM_PAG + r.nextInt(TAM_PAG);
+        }
+        medicoes.add(new Medicao(entradasTlb > 0 ? "mmu/toPhysical-tlb" + entradasTlb : "mmu/toPhysical-sem-tlb", "traduções", () -> {
+            long s = 0;
+            for (int e : enderecos) s += cpu.toPhysical(e);
+            sumidouro = s;
+            return enderecos.length;
+        }));
+    }
+
+    // Gerência de memória com muitos frames: alocação/liberação e escolha de vítima por política
+    private static void gm(List<Medicao> medicoes, int frames) {
+        SisOp_GM livre = new SisOp_GM(frames * TAM_PAG, TAM_PAG, "indice");
+        SisOp_ProcessManager.PCB dono = new SisOp_ProcessManager.PCB(1, tabelaIdentidade(frames), -1, "bench");
+        medicoes.add(new Medicao("gm/aloca-libera-" + frames, "frames", () -> {
+            int f = livre.findFreeFrame();
+            livre.occupyFrame(f, dono, f);
+            livre.freeFrame(f);
+            return 1;
+        }));
+        for (String politica : new String[] { "indice", "fifo", "clock", "aging", "random" }) {
+            SisOp_GM gm = new SisOp_GM(frames * TAM_PAG, TAM_PAG, politica);
+            SisOp_ProcessManager.PCB pcb = new SisOp_ProcessManager.PCB(2, tabelaIdentidade(frames), -1, "bench");
+            for (int f = 0; f < frames; f++) gm.occupyFrame(f, pcb, f);
+            gm.liberaFixados(pcb);
+            medicoes.add(new Medicao("gm/vitima-" + politica + "-" + frames, "escolhas", () -> {
+                int v = gm.selectVictimFrame();
+                // a vítima é recarregada com a mesma página, como numa falta seguida de carga
+                gm.freeFrame(v);
+                gm.occupyFrame(v, pcb, v);
+                gm.getFrameInfo(v).fixado = false;
+                pcb.getPageTable()[v].referenced = true;
+                sumidouro = v;
+                return 1;
+            }));
+        }
+    }
+
+    // Cópia de páginas entre imagens e a memória (páginas por segundo)
+    private static void paginas(List<Medicao> medicoes) {
+        SisOp so = sistema();
+        int frames = so.gm.getFrameCount();
+        long[] imagem = new long[frames * TAM_PAG];
+        for (int i = 0; i < imagem.length; i++) imagem[i] = i;
+        medicoes.add(new Medicao("utilities/loadPage", "páginas", () -> {
+            for (int p = 0; p < frames; p++) so.utils.loadPage(imagem, frames - 1 - p, p);
+            return frames;
+        }));
+        medicoes.add(new Medicao("utilities/savePage", "páginas", () -> {
+            long s = 0;
+            for (int f = 0; f < frames; f++) s += so.utils.savePage(f)[0];
+            sumidouro = s;
+            return frames;
+        }));
+    }
+
+    // Custo do escalonador numa preempção com n processos prontos: contabiliza a fatia, salva o
+    // contexto, reenfileira o processo e despacha o próximo. Não inclui a interrupção de tempo
+    // nem a execução de instruções entre as trocas.
+    private static void escalonador(List<Medicao> medicoes, int n) {
+        SisOp so = sistema();
+        Sistema.Programs progs = new Sistema.Programs();
+        for (int i = 0; i < n; i++) so.processManager.criaProcesso(progs.retrieveProgram("fibonacci10"), "fibonacci10");
+        medicoes.add(new Medicao("escalonador/preempcao-e-despacho-" + n, "despachos", () -> {
+            so.processManager.escalonar(0, false);
+            return 1;
+        }));
+    }
+}
@@ -1,3 +1,4 @@
+import java.nio.LongBuffer;
 import java.util.Arrays;
 
 public class Hardware {
@@ -6,8 +7,11 @@ public class Hardware {
     public static class PageTableEntry {
         public int frameNumber = -1;
         public boolean valid = false;
-        public boolean onDisk = false;
+        public boolean onDisk = false;      // há cópia atualizada da página no swap
         public int diskAddress = -1;
+        public boolean referenced = false;  // ligado pela MMU a cada acesso
+        public boolean modified = false;    // ligado pela MMU a cada escrita (STD/STX, E/S)
+        public boolean usado = false;       // idem a 'referenced', mas lido e limpo só pelo estimador do conjunto de trabalho
     }
 
     // Simulador da CPU com suporte a paginação e interrupções
@@ -18,6 +22,8 @@ public class Hardware {
             LDI, LDD, STD, LDX, STX, MOVE, SYSCALL, STOP
         }
 
+        private static final Opcode[] OPCODES = Opcode.values();
+
         public enum Interrupts {
             noInterrupt, intEnderecoInvalido, intInstrucaoInvalida, intOverflow, intQuantumEnd, 
             intIO,
@@ -26,12 +32,18 @@ public class Hardware {
 
         private int maxInt, minInt;
         private int pc;
-        private Word ir;
+        private long ir;
         private int[] reg;
         private Interrupts irpt;
-        private Word[] m;
+        private Memory mem;
+        private long[] m;
+        private DecodeCache decoded;
+        private BlockTranslator jit;
         private int tamPg;
+        private int deslocPg;   // log2(tamPg) se tamPg é potência de dois; senão -1
         private PageTableEntry[] tabelaPaginas = null; 
+        private int asid = 0;
+        private TLB tlb = null;
         private SisOp.InterruptHandling ih;
         private SisOp.SysCallHandling sysCall;
         private boolean cpuStop;
@@ -40,16 +52,34 @@ public class Hardware {
         private int instructionCounter;
         
         private int faultedPage = -1;
+        private int id;
+        // linha de interrupção dos dispositivos de E/S: ligada por outras threads e convertida em
+        // intIO no início do próximo step (irpt só é escrito pela thread do núcleo)
+        private volatile boolean linhaES = false;
 
         public CPU(Memory _mem, boolean _debug, int tamPag) {
+            this(_mem, _debug, tamPag, 0);
+        }
+
+        public CPU(Memory _mem, boolean _debug, int tamPag, int _id) {
+            this.id = _id;
             this.maxInt = 32767;
             this.minInt = -32767;
+            this.mem = _mem;
             this.m = _mem.pos;
+            this.decoded = _mem.getDecodeCache();
+            this.jit = _mem.getTranslator();
             this.reg = new int[10];
             this.debug = _debug;
             this.instructionCounter = 0;
             this.irpt = Interrupts.noInterrupt;
             this.tamPg = tamPag;
+            this.deslocPg = Integer.bitCount(tamPag) == 1 ? Integer.numberOfTrailingZeros(tamPag) : -1;
+        }
+
+        // Número do núcleo (usado para rotear interrupções e syscalls)
+        public int getId() {
+            return this.id;
         }
 
         public void setDebug(boolean _debug) {
@@ -67,7 +97,21 @@ public class Hardware {
 
         // Define a tabela de páginas do processo atual
         public void setMMU(PageTableEntry[] _tabelaPaginas) {
+            setMMU(_tabelaPaginas, 0);
+        }
+
+        // Define a tabela de páginas e o identificador de espaço de endereçamento (ASID) usado na TLB
+        public void setMMU(PageTableEntry[] _tabelaPaginas, int _asid) {
             this.tabelaPaginas = _tabelaPaginas;
+            this.asid = _asid;
+        }
+
+        public void setTLB(TLB _tlb) {
+            this.tlb = _tlb;
+        }
+
+        public TLB getTLB() {
+            return this.tlb;
         }
         
         public int getFaultedPage() {
@@ -90,11 +134,26 @@ public class Hardware {
         public void resetInstructionCounter() {
             this.instructionCounter = 0;
         }
+        public int getInstructionCounter() { return instructionCounter; }
+
+        public boolean isStopped() {
+            return this.cpuStop;
+        }
+
+        // Indica se há interrupção aguardando tratamento no próximo step
+        public boolean hasPendingInterrupt() {
+            return this.irpt != Interrupts.noInterrupt;
+        }
 
         public void triggerIOInterrupt() {
             this.irpt = Interrupts.intIO;
         }
 
+        // Sinaliza, de qualquer thread, que um dispositivo concluiu uma operação
+        public void sinalizaES() {
+            this.linhaES = true;
+        }
+
         public void triggerPageFault(int page) {
             this.faultedPage = page;
             this.irpt = Interrupts.intPageFault;
@@ -102,17 +161,37 @@ public class Hardware {
 
         // Traduz endereço lógico para físico usando tabela de páginas
         public int toPhysical(int endLogico) {
+            return toPhysical(endLogico, false);
+        }
+
+        // Idem, ligando os bits de referência e (se escrita) de modificação da página. Um acerto
+        // na TLB não toca a tabela: a entrada só existe com os bits de referência ligados (quem
+        // os limpa invalida a tradução) e guarda se a página já foi marcada como modificada.
+        public int toPhysical(int endLogico, boolean escrita) {
             if (tabelaPaginas == null) return endLogico;
             if (endLogico < 0) {
                 irpt = Interrupts.intEnderecoInvalido;
                 return -1;
             }
-            int pag = endLogico / tamPg;
-            int off = endLogico % tamPg;
-            if (pag < 0 || pag >= tabelaPaginas.length) {
+            int pag, off;
+            if (deslocPg >= 0) {
+                pag = endLogico >>> deslocPg;
+                off = endLogico & (tamPg - 1);
+            } else {
+                pag = endLogico / tamPg;
+                off = endLogico % tamPg;
+            }
+            if (pag >= tabelaPaginas.length) {
                 irpt = Interrupts.intEnderecoInvalido;
                 return -1;
             }
+
+            if (tlb != null) {
+                int frameTlb = tlb.lookup(asid, pag, escrita);
+                if (frameTlb >= 0) {
+                    return frameTlb * tamPg + off;
+                }
+            }
             
             PageTableEntry entry = tabelaPaginas[pag];
 
@@ -133,6 +212,12 @@ public class Hardware {
                 irpt = Interrupts.intEnderecoInvalido;
                 return -1;
             }
+            entry.referenced = true;
+            entry.usado = true;
+            if (escrita) entry.modified = true;
+            if (tlb != null) {
+                tlb.insert(asid, pag, frame, entry.modified);
+            }
             return endFis;
         }
 
@@ -148,10 +233,14 @@ public class Hardware {
         public void step(int quantum) {
             if (cpuStop) return;
 
+            if (linhaES && irpt == Interrupts.noInterrupt) {
+                linhaES = false;
+                irpt = Interrupts.intIO;
+            }
             if (irpt != Interrupts.noInterrupt) {
                 Interrupts currentIrpt = irpt;
                 irpt = Interrupts.noInterrupt;
-                ih.handle(currentIrpt);
+                ih.handle(id, currentIrpt);
                 if (cpuStop) return;
                 if (cpuStop) return; 
             }
@@ -163,86 +252,115 @@ public class Hardware {
             }
 
             if (legalFisico(pcFis)) {
+                if (jit != null && !debug) {
+                    Block bloco = jit.block(pcFis);
+                    if (bloco != null && instructionCounter + bloco.length() <= quantum) {
+                        // Encadeia blocos traduzidos enquanto couberem no quantum
+                        do {
+                            bloco.run(this);
+                            if (irpt != Interrupts.noInterrupt || cpuStop || instructionCounter >= quantum || linhaES) break;
+                            int prox = toPhysical(pc);
+                            if (irpt != Interrupts.noInterrupt || !legalFisico(prox)) break;
+                            bloco = jit.block(prox);
+                        } while (bloco != null && instructionCounter + bloco.length() <= quantum);
+                        if (irpt == Interrupts.noInterrupt && instructionCounter >= quantum) {
+                            irpt = Interrupts.intQuantumEnd;
+                        }
+                        return;
+                    }
+                }
                 ir = m[pcFis];
+                int handler = decoded != null ? decoded.handler(pcFis) : (int) (ir >>> 56);
+                if (handler >= DecodeCache.FUSED) {
+                    if (!debug && instructionCounter + 2 <= quantum) {
+                        execFused(handler, pcFis, quantum);
+                        return;
+                    }
+                    handler = (int) (ir >>> 56);
+                }
+                Opcode opc = OPCODES[handler];
+                int r1 = Memory.r1(ir);
+                int r2 = Memory.r2(ir);
+                int p = Memory.p(ir);
                 if (debug) {
                     System.out.print("\nregs: ");
                     for (int i = 0; i < 10; i++) System.out.print(" r[" + i + "]:" + reg[i]);
                     System.out.println();
                     System.out.print("pc(log) " + pc + " -> pc(fis) " + pcFis + "       exec: ");
                     System.out.print("\n------------------------------------------------------------");
-                    u.dump(ir);
+                    u.dump(mem.get(pcFis));
                 }
                 
                 int oldPC = pc; 
                 
-                switch (ir.opc) {
+                switch (opc) {
                     case LDI:
-                        reg[ir.r1] = ir.p;
+                        reg[r1] = p;
                         pc++;
                         break;
                     case LDD: {
-                        int a = toPhysical(ir.p);
+                        int a = toPhysical(p);
                         if (irpt != Interrupts.noInterrupt) break;
                         if (legalFisico(a)) {
-                            reg[ir.r1] = m[a].p;
+                            reg[r1] = Memory.p(m[a]);
                             pc++;
                         }
                     }
                         break;
                     case LDX: {
-                        int a = toPhysical(reg[ir.r2]);
+                        int a = toPhysical(reg[r2]);
                         if (irpt != Interrupts.noInterrupt) break;
                         if (legalFisico(a)) {
-                            reg[ir.r1] = m[a].p;
+                            reg[r1] = Memory.p(m[a]);
                             pc++;
                         }
                     }
                         break;
                     case STD: {
-                        int a = toPhysical(ir.p);
+                        int a = toPhysical(p, true);
                         if (irpt != Interrupts.noInterrupt) break;
                         if (legalFisico(a)) {
-                            m[a].opc = Opcode.DATA;
-                            m[a].p = reg[ir.r1];
+                            m[a] = Memory.withData(m[a], reg[r1]);
+                            if (decoded != null) decoded.update(a);
                             pc++;
                         }
                     }
                         break;
                     case STX: {
-                        int a = toPhysical(reg[ir.r1]);
+                        int a = toPhysical(reg[r1], true);
                         if (irpt != Interrupts.noInterrupt) break;
                         if (legalFisico(a)) {
-                            m[a].opc = Opcode.DATA;
-                            m[a].p = reg[ir.r2];
+                            m[a] = Memory.withData(m[a], reg[r2]);
+                            if (decoded != null) decoded.update(a);
                             pc++;
                         }
                     }
                         break;
-                    case MOVE: reg[ir.r1] = reg[ir.r2]; pc++; break;
-                    case ADD: reg[ir.r1] += reg[ir.r2]; testOverflow(reg[ir.r1]); pc++; break;
-                    case ADDI: reg[ir.r1] += ir.p; testOverflow(reg[ir.r1]); pc++; break;
-                    case SUB: reg[ir.r1] -= reg[ir.r2]; testOverflow(reg[ir.r1]); pc++; break;
-                    case SUBI: reg[ir.r1] -= ir.p; testOverflow(reg[ir.r1]); pc++; break;
-                    case MULT: reg[ir.r1] *= reg[ir.r2]; testOverflow(reg[ir.r1]); pc++; break;
-                    case JMP: pc = ir.p; break;
-                    case JMPI: pc = reg[ir.r1]; break;
-                    case JMPIG: pc = (reg[ir.r2] > 0) ? reg[ir.r1] : pc + 1; break;
-                    case JMPIL: pc = (reg[ir.r2] < 0) ? reg[ir.r1] : pc + 1; break;
-                    case JMPIE: pc = (reg[ir.r2] == 0) ? reg[ir.r1] : pc + 1; break;
-                    case JMPIGK: pc = (reg[ir.r2] > 0) ? ir.p : pc + 1; break;
-                    case JMPILK: pc = (reg[ir.r2] < 0) ? ir.p : pc + 1; break;
-                    case JMPIEK: pc = (reg[ir.r2] == 0) ? ir.p : pc + 1; break;
-                    case JMPIM: { int a = toPhysical(ir.p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = m[a].p; } break;
-                    case JMPIGM: { int a = toPhysical(ir.p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = (reg[ir.r2] > 0) ? m[a].p : pc + 1; } break;
-                    case JMPILM: { int a = toPhysical(ir.p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = (reg[ir.r2] < 0) ? m[a].p : pc + 1; } break;
-                    case JMPIEM: { int a = toPhysical(ir.p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = (reg[ir.r2] == 0) ? m[a].p : pc + 1; } break;
+                    case MOVE: reg[r1] = reg[r2]; pc++; break;
+                    case ADD: reg[r1] += reg[r2]; testOverflow(reg[r1]); pc++; break;
+                    case ADDI: reg[r1] += p; testOverflow(reg[r1]); pc++; break;
+                    case SUB: reg[r1] -= reg[r2]; testOverflow(reg[r1]); pc++; break;
+                    case SUBI: reg[r1] -= p; testOverflow(reg[r1]); pc++; break;
+                    case MULT: reg[r1] *= reg[r2]; testOverflow(reg[r1]); pc++; break;
+                    case JMP: pc = p; break;
+                    case JMPI: pc = reg[r1]; break;
+                    case JMPIG: pc = (reg[r2] > 0) ? reg[r1] : pc + 1; break;
+                    case JMPIL: pc = (reg[r2] < 0) ? reg[r1] : pc + 1; break;
+                    case JMPIE: pc = (reg[r2] == 0) ? reg[r1] : pc + 1; break;
+                    case JMPIGK: pc = (reg[r2] > 0) ? p : pc + 1; break;
+                    case JMPILK: pc = (reg[r2] < 0) ? p : pc + 1; break;
+                    case JMPIEK: pc = (reg[r2] == 0) ? p : pc + 1; break;
+                    case JMPIM: { int a = toPhysical(p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = Memory.p(m[a]); } break;
+                    case JMPIGM: { int a = toPhysical(p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = (reg[r2] > 0) ? Memory.p(m[a]) : pc + 1; } break;
+                    case JMPILM: { int a = toPhysical(p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = (reg[r2] < 0) ? Memory.p(m[a]) : pc + 1; } break;
+                    case JMPIEM: { int a = toPhysical(p); if (irpt != Interrupts.noInterrupt) break; if (legalFisico(a)) pc = (reg[r2] == 0) ? Memory.p(m[a]) : pc + 1; } break;
 
                     case DATA: irpt = Interrupts.intInstrucaoInvalida; break;
                     case SYSCALL:
-                        sysCall.handle(); 
+                        sysCall.handle(id);
                         break;
                     case STOP:
-                        sysCall.stop();
+                        sysCall.stop(id);
                         break;
                     default:
                         irpt = Interrupts.intInstrucaoInvalida;
@@ -262,6 +380,32 @@ public class Hardware {
             }
         }
 
+        // Executa um par de instruções fundido pelo DecodeCache (conta como duas no quantum)
+        private void execFused(int handler, int pcFis, int quantum) {
+            long w1 = m[pcFis];
+            long w2 = m[pcFis + 1];
+            switch (handler) {
+                case DecodeCache.LDI_JMPIE:
+                    reg[Memory.r1(w1)] = Memory.p(w1);
+                    pc = (reg[Memory.r2(w2)] == 0) ? reg[Memory.r1(w2)] : pc + 2;
+                    break;
+                case DecodeCache.SUB_JMP:
+                    reg[Memory.r1(w1)] -= reg[Memory.r2(w1)];
+                    if (!testOverflow(reg[Memory.r1(w1)])) { pc++; return; }
+                    pc = Memory.p(w2);
+                    break;
+                case DecodeCache.SUB_JMPIG:
+                    reg[Memory.r1(w1)] -= reg[Memory.r2(w1)];
+                    if (!testOverflow(reg[Memory.r1(w1)])) { pc++; return; }
+                    pc = (reg[Memory.r2(w2)] > 0) ? reg[Memory.r1(w2)] : pc + 2;
+                    break;
+            }
+            instructionCounter += 2;
+            if (instructionCounter >= quantum) {
+                irpt = Interrupts.intQuantumEnd;
+            }
+        }
+
         public void stop() { this.cpuStop = true; }
         public void start() { this.cpuStop = false; }
 
@@ -275,14 +419,437 @@ public class Hardware {
         }
     }
 
-    // Memória RAM simulada
+    // TLB associativa por conjunto, com entradas marcadas pelo ASID (id do processo).
+    // Cada entrada é um long [ asid (20 bits) | página (20 bits) | modificada (1 bit) | frame (23 bits) ],
+    // de modo que a invalidação feita por outro núcleo (shootdown) é uma única escrita. O número
+    // de conjuntos é potência de dois, para que o índice saia de uma máscara.
+    public static class TLB {
+        public static final int VIAS = 4;
+        private static final long VAZIA = -1L;
+        private static final long TAG = ~0xFFFFFFL;
+        private static final long MODIFICADA = 1L << 23;
+        private static final int FRAME = 0x7FFFFF;
+
+        private final long[] entradas;
+        private final int[] proxima;
+        private final int mascara;
+        private final int vias;
+        private long hits;
+        private long misses;
+
+        // 'tamanho' é arredondado para baixo a vias * (potência de dois)
+        public TLB(int tamanho) {
+            this.vias = Math.max(1, Math.min(VIAS, tamanho));
+            int conjuntos = Integer.highestOneBit(Math.max(1, tamanho / vias));
+            this.mascara = conjuntos - 1;
+            this.entradas = new long[conjuntos * vias];
+            this.proxima = new int[conjuntos];
+            Arrays.fill(entradas, VAZIA);
+        }
+
+        private static long tag(int asid, int pag) {
+            return ((long) (asid & 0xFFFFF) << 44) | ((long) (pag & 0xFFFFF) << 24);
+        }
+
+        private int conjunto(int asid, int pag) {
+            return (pag ^ asid) & mascara;
+        }
+
+        // Retorna o frame da página ou -1 (miss). A primeira escrita numa entrada ainda não
+        // marcada como modificada também é miss: a MMU consulta a tabela e liga o bit lá.
+        public int lookup(int asid, int pag, boolean escrita) {
+            long t = tag(asid, pag);
+            int base = conjunto(asid, pag) * vias;
+            for (int i = base; i < base + vias; i++) {
+                long e = entradas[i];
+                if (e != VAZIA && (e & TAG) == t) {
+                    if (escrita && (e & MODIFICADA) == 0) break;
+                    hits++;
+                    return (int) e & FRAME;
+                }
+            }
+            misses++;
+            return -1;
+        }
+
+        // Insere a tradução (ou atualiza a existente), substituindo as vias do conjunto em rodízio
+        public void insert(int asid, int pag, int frame, boolean modificada) {
+            long t = tag(asid, pag);
+            long e = t | (modificada ? MODIFICADA : 0) | (frame & FRAME);
+            int c = conjunto(asid, pag);
+            int base = c * vias;
+            for (int i = base; i < base + vias; i++) {
+                if (entradas[i] != VAZIA && (entradas[i] & TAG) == t) {
+                    entradas[i] = e;
+                    return;
+                }
+            }
+            int via = proxima[c];
+            proxima[c] = via + 1 == vias ? 0 : via + 1;
+            entradas[base + via] = e;
+        }
+
+        // Remove a tradução de uma página (vitimização, carga ou bit de referência limpo)
+        public void invalidate(int asid, int pag) {
+            long t = tag(asid, pag);
+            int base = conjunto(asid, pag) * vias;
+            for (int i = base; i < base + vias; i++) {
+                if (entradas[i] != VAZIA && (entradas[i] & TAG) == t) {
+                    entradas[i] = VAZIA;
+                }
+            }
+        }
+
+        // Remove todas as traduções de um processo (término)
+        public void invalidateAsid(int asid) {
+            long a = (long) (asid & 0xFFFFF) << 44;
+            for (int i = 0; i < entradas.length; i++) {
+                if (entradas[i] != VAZIA && (entradas[i] & 0xFFFFF00000000000L) == a) {
+                    entradas[i] = VAZIA;
+                }
+            }
+        }
+
+        public void flush() {
+            Arrays.fill(entradas, VAZIA);
+        }
+
+        public int size() { return entradas.length; }
+        public long getHits() { return hits; }
+        public long getMisses() { return misses; }
+        public void resetCounters() { hits = 0; misses = 0; }
+    }
+
+    // Cache de instruções pré-decodificadas, indexada por endereço físico.
+    // Guarda, para cada palavra, o código do tratador: o ordinal do opcode ou, quando a palavra
+    // e a seguinte (no mesmo frame) formam um par frequente, uma superinstrução fundida.
+    // É mantida coerente a cada escrita na memória (carga de página, STD/STX, E/S).
+    public static class DecodeCache {
+        public static final int FUSED = 64;
+        public static final int LDI_JMPIE = 64;
+        public static final int SUB_JMP = 65;
+        public static final int SUB_JMPIG = 66;
+
+        private static final int LDI = CPU.Opcode.LDI.ordinal();
+        private static final int SUB = CPU.Opcode.SUB.ordinal();
+        private static final int JMP = CPU.Opcode.JMP.ordinal();
+        private static final int JMPIE = CPU.Opcode.JMPIE.ordinal();
+        private static final int JMPIG = CPU.Opcode.JMPIG.ordinal();
+
+        private final long[] m;
+        private final byte[] handlers;
+        private final int tamPg;
+
+        private BlockTranslator translator;
+
+        public void setTranslator(BlockTranslator t) { this.translator = t; }
+
+        public DecodeCache(Memory mem, int tamPg) {
+            this.m = mem.pos;
+            this.tamPg = tamPg;
+            this.handlers = new byte[m.length];
+            decodeRange(0, m.length);
+        }
+
+        public int handler(int addr) { return handlers[addr]; }
+
+        private void decode(int a) {
+            int op = (int) (m[a] >>> 56);
+            int h = op;
+            if ((a + 1) % tamPg != 0 && a + 1 < m.length) {
+                int prox = (int) (m[a + 1] >>> 56);
+                if (op == LDI && prox == JMPIE) h = LDI_JMPIE;
+                else if (op == SUB && prox == JMP) h = SUB_JMP;
+                else if (op == SUB && prox == JMPIG) h = SUB_JMPIG;
+            }
+            handlers[a] = (byte) h;
+        }
+
+        // Redecodifica uma palavra alterada (e a anterior, que pode ter se fundido com ela)
+        public void update(int a) {
+            decode(a);
+            if (a % tamPg != 0) decode(a - 1);
+            if (translator != null) translator.invalidate(a);
+        }
+
+        // Redecodifica um intervalo recém-copiado (carga de página)
+        public void decodeRange(int addr, int len) {
+            int ini = (addr % tamPg != 0) ? addr - 1 : addr;
+            for (int a = ini; a < addr + len; a++) {
+                decode(a);
+            }
+            if (translator != null) translator.invalidateRange(addr, len);
+        }
+    }
+
+    // Bloco básico traduzido: sequência de instruções de um mesmo frame, terminada (opcionalmente)
+    // por um desvio. Cada instrução vira uma micro-operação com registradores e constantes já
+    // resolvidos, executada em um laço fechado sem busca, decodificação nem tradução do pc.
+    // Mantém a semântica exata do interpretador: overflow, page fault e contagem do quantum.
+    public static class Block {
+        static final int LDI = 0, MOVE = 1, ADD = 2, ADDI = 3, SUB = 4, SUBI = 5, MULT = 6,
+                         LDD = 7, LDX = 8, STD = 9, STX = 10,
+                         JMP = 11, JMPI = 12, JMPIG = 13, JMPIL = 14, JMPIE = 15, JMPIGK = 16, JMPILK = 17, JMPIEK = 18;
+
+        private final int[] op, ra, rb, k;
+        private final int inicio;
+        private final boolean terminaEmDesvio;
+
+        Block(int[] op, int[] ra, int[] rb, int[] k, int inicio, boolean terminaEmDesvio) {
+            this.op = op; this.ra = ra; this.rb = rb; this.k = k;
+            this.inicio = inicio;
+            this.terminaEmDesvio = terminaEmDesvio;
+        }
+
+        public int length() { return op.length; }
+
+        void run(CPU c) {
+            int[] reg = c.reg;
+            long[] m = c.m;
+            int base = c.pc;
+            int n = op.length;
+            for (int i = 0; i < n; i++) {
+                int x = ra[i], y = rb[i];
+                switch (op[i]) {
+                    case LDI: reg[x] = k[i]; break;
+                    case MOVE: reg[x] = reg[y]; break;
+                    case ADD: reg[x] += reg[y]; if (!c.testOverflow(reg[x])) { falha(c, base, i); return; } break;
+                    case ADDI: reg[x] += k[i]; if (!c.testOverflow(reg[x])) { falha(c, base, i); return; } break;
+                    case SUB: reg[x] -= reg[y]; if (!c.testOverflow(reg[x])) { falha(c, base, i); return; } break;
+                    case SUBI: reg[x] -= k[i]; if (!c.testOverflow(reg[x])) { falha(c, base, i); return; } break;
+                    case MULT: reg[x] *= reg[y]; if (!c.testOverflow(reg[x])) { falha(c, base, i); return; } break;
+                    case LDD:
+                    case LDX: {
+                        int a = c.toPhysical(op[i] == LDD ? k[i] : reg[y]);
+                        if (c.irpt != CPU.Interrupts.noInterrupt || !c.legalFisico(a)) { falha(c, base, i); return; }
+                        reg[x] = Memory.p(m[a]);
+                        break;
+                    }
+                    case STD:
+                    case STX: {
+                        int a = c.toPhysical(op[i] == STD ? k[i] : reg[x], true);
+                        if (c.irpt != CPU.Interrupts.noInterrupt || !c.legalFisico(a)) { falha(c, base, i); return; }
+                        m[a] = Memory.withData(m[a], reg[op[i] == STD ? x : y]);
+                        if (c.decoded != null) c.decoded.update(a);
+                        if (a >= inicio && a < inicio + n) {
+                            // escreveu sobre o próprio código: o bloco foi invalidado
+                            sai(c, base + i + 1, i);
+                            return;
+                        }
+                        break;
+                    }
+                    case JMP: sai(c, k[i], i); return;
+                    case JMPI: sai(c, reg[x], i); return;
+                    case JMPIG: sai(c, (reg[y] > 0) ? reg[x] : base + i + 1, i); return;
+                    case JMPIL: sai(c, (reg[y] < 0) ? reg[x] : base + i + 1, i); return;
+                    case JMPIE: sai(c, (reg[y] == 0) ? reg[x] : base + i + 1, i); return;
+                    case JMPIGK: sai(c, (reg[y] > 0) ? k[i] : base + i + 1, i); return;
+                    case JMPILK: sai(c, (reg[y] < 0) ? k[i] : base + i + 1, i); return;
+                    case JMPIEK: sai(c, (reg[y] == 0) ? k[i] : base + i + 1, i); return;
+                }
+            }
+            if (!terminaEmDesvio) c.pc = base + n;
+            c.instructionCounter += n;
+        }
+
+        // Instrução i concluída, definindo o próximo pc
+        private static void sai(CPU c, int novoPc, int i) {
+            c.pc = novoPc;
+            c.instructionCounter += i + 1;
+        }
+
+        // Instrução i não concluiu: volta ao interpretador nela (ou após ela, em caso de overflow)
+        private static void falha(CPU c, int base, int i) {
+            c.instructionCounter += i;
+            c.pc = base + i + (c.irpt == CPU.Interrupts.intOverflow ? 1 : 0);
+        }
+    }
+
+    // Tradutor de blocos quentes (execução em camadas). Conta quantas vezes cada endereço físico
+    // inicia um step no interpretador e, ao atingir o limiar, traduz o bloco básico que começa ali.
+    // Blocos são invalidados quando a memória que cobrem é escrita.
+    public static class BlockTranslator {
+        private static final Block NAO_TRADUZIVEL = new Block(new int[0], null, null, null, 0, false);
+
+        private final long[] m;
+        private final int tamPg;
+        private final int limiar;
+        private final Block[] blocos;
+        private final short[] calor;
+
+        public BlockTranslator(Memory mem, int tamPg, int limiar) {
+            this.m = mem.pos;
+            this.tamPg = tamPg;
+            this.limiar = Math.min(limiar, Short.MAX_VALUE);
+            this.blocos = new Block[m.length];
+            this.calor = new short[m.length];
+        }
+
+        // Bloco traduzido que começa em 'addr', ou null (contabilizando a execução)
+        Block block(int addr) {
+            Block b = blocos[addr];
+            if (b != null) return b == NAO_TRADUZIVEL ? null : b;
+            if (++calor[addr] < limiar) return null;
+            b = translate(addr);
+            blocos[addr] = b;
+            return b == NAO_TRADUZIVEL ? null : b;
+        }
+
+        // Invalida os blocos do frame que cobrem o endereço escrito
+        public void invalidate(int addr) {
+            int ini = addr - addr % tamPg;
+            for (int a = ini; a <= addr; a++) {
+                Block b = blocos[a];
+                if (b != null && (b == NAO_TRADUZIVEL || a + b.length() > addr)) {
+                    blocos[a] = null;
+                    calor[a] = 0;
+                }
+            }
+        }
+
+        // Invalida os blocos que cobrem um intervalo recém-copiado: os que começam nele e os que
+        // começam antes dele no frame e chegam até ele. Os demais continuam valendo, para que a
+        // cópia de um dado no frame do código não faça o código esfriar.
+        public void invalidateRange(int addr, int len) {
+            int ini = addr - addr % tamPg;
+            for (int a = ini; a < addr + len; a++) {
+                Block b = blocos[a];
+                if (a >= addr || (b != null && (b == NAO_TRADUZIVEL || a + b.length() > addr))) {
+                    blocos[a] = null;
+                    calor[a] = 0;
+                }
+            }
+        }
+
+        private Block translate(int inicio) {
+            int fimFrame = Math.min(inicio - inicio % tamPg + tamPg, m.length);
+            int[] op = new int[fimFrame - inicio];
+            int[] ra = new int[op.length], rb = new int[op.length], k = new int[op.length];
+            int n = 0;
+            boolean desvio = false;
+            for (int a = inicio; a < fimFrame && !desvio; a++) {
+                int codigo = microOp(Memory.opcode(m[a]));
+                if (codigo < 0) break;
+                op[n] = codigo;
+                ra[n] = Memory.r1(m[a]);
+                rb[n] = Memory.r2(m[a]);
+                k[n] = Memory.p(m[a]);
+                n++;
+                desvio = codigo >= Block.JMP;
+            }
+            // um desvio sozinho também vira bloco (típico no teste do laço), para que o laço
+            // inteiro rode encadeado sem voltar ao interpretador a cada volta
+            if (n == 0 || (n == 1 && !desvio)) return NAO_TRADUZIVEL;
+            return new Block(Arrays.copyOf(op, n), Arrays.copyOf(ra, n), Arrays.copyOf(rb, n), Arrays.copyOf(k, n),
+                             inicio, desvio);
+        }
+
+        // Micro-operação correspondente ao opcode; -1 encerra o bloco antes da instrução
+        private static int microOp(CPU.Opcode opc) {
+            switch (opc) {
+                case LDI: return Block.LDI;
+                case MOVE: return Block.MOVE;
+                case ADD: return Block.ADD;
+                case ADDI: return Block.ADDI;
+                case SUB: return Block.SUB;
+                case SUBI: return Block.SUBI;
+                case MULT: return Block.MULT;
+                case LDD: return Block.LDD;
+                case LDX: return Block.LDX;
+                case STD: return Block.STD;
+                case STX: return Block.STX;
+                case JMP: return Block.JMP;
+                case JMPI: return Block.JMPI;
+                case JMPIG: return Block.JMPIG;
+                case JMPIL: return Block.JMPIL;
+                case JMPIE: return Block.JMPIE;
+                case JMPIGK: return Block.JMPIGK;
+                case JMPILK: return Block.JMPILK;
+                case JMPIEK: return Block.JMPIEK;
+                default: return -1;
+            }
+        }
+    }
+
+    // Memória RAM simulada: cada palavra é empacotada em um long
+    // [ opcode (8 bits) | r1 (8 bits) | r2 (8 bits) | livre (8 bits) | p (32 bits) ]
     public static class Memory {
-        public Word[] pos;
+        private static final CPU.Opcode[] OPCODES = CPU.Opcode.values();
+        private static final long EMPTY = pack(CPU.Opcode.___, -1, -1, -1);
+
+        public long[] pos;
+        private DecodeCache decoded;
+        private BlockTranslator jit;
         public Memory(int size) {
-            this.pos = new Word[size];
-            for (int i = 0; i < pos.length; i++) {
-                pos[i] = new Word(CPU.Opcode.___, -1, -1, -1);
+            this.pos = new long[size];
+            Arrays.fill(pos, EMPTY);
+        }
+
+        public void setDecodeCache(DecodeCache dc) { this.decoded = dc; }
+        public DecodeCache getDecodeCache() { return decoded; }
+        public BlockTranslator getTranslator() { return decoded != null ? decoded.translator : null; }
+
+        public int size() { return pos.length; }
+
+        // Acesso a campos de uma palavra empacotada
+        public static CPU.Opcode opcode(long w) { return OPCODES[(int) (w >>> 56)]; }
+        public static int r1(long w) { return (byte) (w >>> 48); }
+        public static int r2(long w) { return (byte) (w >>> 40); }
+        public static int p(long w) { return (int) w; }
+
+        public static long pack(CPU.Opcode opc, int r1, int r2, int p) {
+            return ((long) opc.ordinal() << 56)
+                 | ((long) (r1 & 0xFF) << 48)
+                 | ((long) (r2 & 0xFF) << 40)
+                 | (p & 0xFFFFFFFFL);
+        }
+
+        public static long pack(Word w) { return pack(w.opc, w.r1, w.r2, w.p); }
+
+        // Empacota um programa inteiro (imagem usada para carregar páginas)
+        public static long[] pack(Word[] program) {
+            long[] image = new long[program.length];
+            for (int i = 0; i < program.length; i++) {
+                image[i] = pack(program[i]);
             }
+            return image;
+        }
+
+        // Palavra com o mesmo r1/r2, marcada como DATA e com novo p (efeito de STD/STX)
+        public static long withData(long w, int p) {
+            return (w & 0x00FFFFFF00000000L) | ((long) CPU.Opcode.DATA.ordinal() << 56) | (p & 0xFFFFFFFFL);
+        }
+
+        // Acesso por endereço físico
+        public Word get(int addr) {
+            long w = pos[addr];
+            return new Word(opcode(w), r1(w), r2(w), p(w));
+        }
+        public void set(int addr, Word w) {
+            pos[addr] = pack(w);
+            if (decoded != null) decoded.update(addr);
+        }
+        public int p(int addr) { return p(pos[addr]); }
+        public void setP(int addr, int p) {
+            pos[addr] = (pos[addr] & 0xFFFFFFFF00000000L) | (p & 0xFFFFFFFFL);
+            if (decoded != null) decoded.update(addr);
+        }
+
+        // Cópias em bloco entre a memória e imagens de página (programa ou swap)
+        public void copyIn(long[] src, int srcPos, int addr, int len) {
+            System.arraycopy(src, srcPos, pos, addr, len);
+            if (decoded != null) decoded.decodeRange(addr, len);
+        }
+        public long[] copyOut(int addr, int len) {
+            return Arrays.copyOfRange(pos, addr, addr + len);
+        }
+        // Transferências diretas entre a memória e um buffer externo (ex.: swap mapeado em arquivo)
+        public void copyTo(int addr, LongBuffer dst, int dstPos, int len) {
+            dst.put(dstPos, pos, addr, len);
+        }
+        public void copyFrom(LongBuffer src, int srcPos, int addr, int len) {
+            src.get(srcPos, pos, addr, len);
+            if (decoded != null) decoded.decodeRange(addr, len);
         }
     }
 
@@ -297,13 +864,51 @@ public class Hardware {
         }
     }
 
-    // Hardware completo: memória e CPU
+    // Hardware completo: memória compartilhada e um ou mais núcleos de CPU
     public static class HW {
         public Memory mem;
         public CPU cpu;
+        public CPU[] cpus;
         public HW(int tamMem, int tamPag) {
+            this(tamMem, tamPag, 1);
+        }
+        public HW(int tamMem, int tamPag, int nucleos) {
+            this(tamMem, tamPag, nucleos, 0);
+        }
+        // entradasTLB = 0 desliga a TLB (toda tradução consulta a tabela de páginas)
+        public HW(int tamMem, int tamPag, int nucleos, int entradasTLB) {
+            this(tamMem, tamPag, nucleos, entradasTLB, 0);
+        }
+        // limiarJIT > 0 liga a tradução de blocos quentes (execuções de um endereço antes de traduzir)
+        public HW(int tamMem, int tamPag, int nucleos, int entradasTLB, int limiarJIT) {
             this.mem = new Memory(tamMem);
-            this.cpu = new CPU(this.mem, false, tamPag);
+            DecodeCache dc = new DecodeCache(this.mem, tamPag);
+            this.mem.setDecodeCache(dc);
+            if (limiarJIT > 0) {
+                dc.setTranslator(new BlockTranslator(this.mem, tamPag, limiarJIT));
+            }
+            this.cpus = new CPU[Math.max(1, nucleos)];
+            for (int i = 0; i < cpus.length; i++) {
+                cpus[i] = new CPU(this.mem, false, tamPag, i);
+                if (entradasTLB > 0) {
+                    cpus[i].setTLB(new TLB(entradasTLB));
+                }
+            }
+            this.cpu = cpus[0];
+        }
+
+        // Invalida a tradução de uma página em todos os núcleos (TLB shootdown)
+        public void invalidateTLB(int asid, int pag) {
+            for (CPU c : cpus) {
+                if (c.getTLB() != null) c.getTLB().invalidate(asid, pag);
+            }
+        }
+
+        // Invalida todas as traduções de um processo em todos os núcleos
+        public void invalidateTLB(int asid) {
+            for (CPU c : cpus) {
+                if (c.getTLB() != null) c.getTLB().invalidateAsid(asid);
+            }
         }
     }
 }
\ No newline at end of file
@@ -1,13 +1,31 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.HashMap;
 import java.util.Map;
+import java.io.BufferedWriter;
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.text.DecimalFormat;
 import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.lang.management.ManagementFactory;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 // Sistema Operacional: coordena hardware, processos, memória e E/S
 public class SisOp {
@@ -20,7 +38,12 @@ public class SisOp {
     public SisOp_ProcessManager processManager;
     public DeviceManager deviceManager;
     public DiskManager diskManager;
+    public SwapDevice swap;
     public VMManager vmManager;
+    public LoadController loadController;
+    public Relogio relogio;
+    public Trace trace;
+    public Estatisticas estatisticas;
     public Logger logger;
     private Sistema sistemaHost; 
     public final int TAM_PAG = 16;
@@ -30,40 +53,64 @@ public class SisOp {
     private boolean schedulerThreadStarted = false;
 
     public SisOp(Hardware.HW hw, Sistema host) {
+        this(hw, host, "clock");
+    }
+
+    public SisOp(Hardware.HW hw, Sistema host, String politicaSubstituicao) {
+        this(hw, host, politicaSubstituicao, 256);
+    }
+
+    public SisOp(Hardware.HW hw, Sistema host, String politicaSubstituicao, int slotsSwap) {
         this.hw = hw;
         this.sistemaHost = host; 
         this.logger = new Logger();
+        this.relogio = new Relogio(this);
+        this.trace = new Trace();
+        this.estatisticas = new Estatisticas();
         this.interruptHandling = new InterruptHandling(this);
         this.sysCallHandling = new SysCallHandling(this);
-        this.hw.cpu.setAddressOfHandlers(this.interruptHandling, this.sysCallHandling);
-        this.gm = new SisOp_GM(hw.mem.pos.length, TAM_PAG);
+        this.gm = new SisOp_GM(hw.mem.size(), TAM_PAG, politicaSubstituicao);
+        this.gm.setHW(hw);
         this.utils = new Utilities(hw);
-        this.hw.cpu.setUtilities(this.utils);
+        for (Hardware.CPU cpu : hw.cpus) {
+            cpu.setAddressOfHandlers(this.interruptHandling, this.sysCallHandling);
+            cpu.setUtilities(this.utils);
+        }
         this.processManager = new SisOp_ProcessManager(this);
         this.vmManager = new VMManager(this);
+        this.loadController = new LoadController(this);
+        this.swap = new SwapDevice("swap.bin", slotsSwap, TAM_PAG);
         this.diskManager = new DiskManager(this);
         new Thread(this.diskManager).start(); 
         this.deviceManager = new DeviceManager(this);
-        new Thread(this.deviceManager).start(); 
+        this.deviceManager.configura("console");
     }
     
     public ExecutionMode getMode() { return this.mode; }
     public Sistema getSistemaHost() { return this.sistemaHost; }
 
     // Ativa modo de execução com threads (não bloqueante)
-    public void activateThreadedMode(int quantum) {
+    public void activateThreadedMode() {
+        activateThreadedMode(0);
+    }
+
+    // Idem, com atraso opcional (ms) entre instruções para acompanhar a execução
+    public void activateThreadedMode(int atrasoMs) {
         if (schedulerThreadStarted) {
             System.out.println("O modo de execução com threads já está ativo.");
             return;
         }
-        if (processManager.getRunningProcess() != null) {
+        if (processManager.hasRunningProcess()) {
             System.out.println("Não é possível mudar de modo enquanto um processo está em execução. Aguarde o fim do 'execAll'.");
             return;
         }
         this.mode = ExecutionMode.THREADED;
         this.schedulerThreadStarted = true;
-        Thread schedulerThread = new Thread(new Sistema.SchedulerExecutor(this, quantum));
-        schedulerThread.start();
+        for (int core = 0; core < hw.cpus.length; core++) {
+            Thread schedulerThread = new Thread(new Sistema.SchedulerExecutor(this, core, atrasoMs));
+            schedulerThread.setName("CPU-" + core);
+            schedulerThread.start();
+        }
         System.out.println("Modo de execução contínuo (threaded) ativado.");
     }
 
@@ -75,34 +122,18 @@ public class SisOp {
         
         public Utilities(Hardware.HW hw) { this.hw = hw; }
 
-        // Carrega uma página do programa em um frame da memória
-        public void loadPage(Hardware.Word[] program, int frame, int page) {
-            Hardware.Word[] m = hw.mem.pos;
+        // Carrega uma página de uma imagem (programa ou swap) em um frame da memória
+        public void loadPage(long[] image, int frame, int page) {
             int startAddr = page * TAM_PAG;
-            int endAddr = Math.min(startAddr + TAM_PAG, program.length);
-            int frameStart = frame * TAM_PAG;
-            for (int i = 0; i < (endAddr - startAddr); i++) {
-                if (startAddr + i < program.length) { 
-                    m[frameStart + i] = new Hardware.Word(
-                        program[startAddr + i].opc, 
-                        program[startAddr + i].r1, 
-                        program[startAddr + i].r2, 
-                        program[startAddr + i].p
-                    );
-                }
+            int len = Math.min(TAM_PAG, image.length - startAddr);
+            if (len > 0) {
+                hw.mem.copyIn(image, startAddr, frame * TAM_PAG, len);
             }
         }
 
         // Salva conteúdo de um frame para swap
-        public Hardware.Word[] savePage(int frame) {
-            Hardware.Word[] pageData = new Hardware.Word[TAM_PAG];
-            Hardware.Word[] m = hw.mem.pos;
-            int frameStart = frame * TAM_PAG;
-            for (int i = 0; i < TAM_PAG; i++) {
-                Hardware.Word w = m[frameStart + i];
-                pageData[i] = new Hardware.Word(w.opc, w.r1, w.r2, w.p);
-            }
-            return pageData;
+        public long[] savePage(int frame) {
+            return hw.mem.copyOut(frame * TAM_PAG, TAM_PAG);
         }
 
         public void dump(Hardware.Word w) { System.out.print("[ " + w.opc + ", " + w.r1 + ", " + w.r2 + ", " + w.p + " ]"); }
@@ -111,7 +142,7 @@ public class SisOp {
         public void dump(int ini, int fim) {
             for (int i = ini; i < fim; i++) {
                 System.out.print(i + ":  ");
-                dump(hw.mem.pos[i]);
+                dump(hw.mem.get(i));
                 System.out.println();
             }
         }
@@ -124,39 +155,46 @@ public class SisOp {
         public InterruptHandling(SisOp so) { this.so = so; }
         public void setLastIOProcess(SisOp_ProcessManager.PCB pcb) { this.lastIOProcess = pcb; }
 
-        // Trata diferentes tipos de interrupções
-        public void handle(Hardware.CPU.Interrupts irpt) {
-            SisOp_ProcessManager.PCB pcb = so.processManager.getRunningProcess();
+        // Trata diferentes tipos de interrupções ocorridas no núcleo 'core'
+        public void handle(int core, Hardware.CPU.Interrupts irpt) {
+            Hardware.CPU cpu = so.hw.cpus[core];
+            SisOp_ProcessManager.PCB pcb = so.processManager.getRunningProcess(core);
+            if (pcb != null && pcb.isRemovido() && so.processManager.desalocaSeRemovido(core)) return;
+            so.trace.registra(Trace.INTERRUPCAO, pcb != null ? pcb.getId() : -1, -1, -1, irpt.ordinal(), core);
             switch (irpt) {
                 case intPageFault:
-                    System.out.println("\n\nInterrupcao: PAGE FAULT");
-                    int faultedPage = so.hw.cpu.getFaultedPage();
+                    if (SisOp_Diag.debug(SisOp_Diag.INTERRUPCAO)) System.out.println("\n\nInterrupcao: PAGE FAULT");
+                    int faultedPage = cpu.getFaultedPage();
                     if (pcb != null) {
-                        pcb.setContext(so.hw.cpu.getContextPC(), so.hw.cpu.getContextRegs());
-                        so.vmManager.handlePageFault(pcb, faultedPage);
+                        pcb.setContext(cpu.getContextPC(), cpu.getContextRegs());
+                        so.vmManager.handlePageFault(core, pcb, faultedPage);
                     } else {
-                        System.out.println("Erro: Page Fault sem processo rodando.");
+                        if (SisOp_Diag.erro(SisOp_Diag.INTERRUPCAO)) System.out.println("Erro: Page Fault sem processo rodando.");
                     }
                     break;
                 case intQuantumEnd:
-                    System.out.println("\n\nInterrupcao de TEMPO");
-                    so.processManager.escalonar(false);
+                    if (SisOp_Diag.debug(SisOp_Diag.INTERRUPCAO)) System.out.println("\n\nInterrupcao de TEMPO");
+                    synchronized (so.processManager.getSchedulerLock()) {
+                        so.gm.tick();
+                    }
+                    so.processManager.escalonar(core, false);
                     break;
                 case intIO:
-                    System.out.println("\n\nInterrupcao de E/S (Console Concluiu)");
+                    if (SisOp_Diag.debug(SisOp_Diag.INTERRUPCAO)) System.out.println("\n\nInterrupcao de E/S (Dispositivo Concluiu)");
                     if (lastIOProcess != null) {
                         so.processManager.unblockProcess(lastIOProcess, "Fim_E/S_Dispositivo_Legado");
                         lastIOProcess = null;
                     }
+                    so.processManager.atendeConclusoes();
                     break;
                 case intEnderecoInvalido:
                 case intInstrucaoInvalida:
                 case intOverflow:
-                    System.out.println("\n\nERRO: Interrupcao " + irpt);
-                    so.processManager.terminaProcessoAtual();
+                    if (SisOp_Diag.erro(SisOp_Diag.INTERRUPCAO)) System.out.println("\n\nERRO: Interrupcao " + irpt);
+                    so.processManager.terminaProcessoAtual(core);
                     break;
                 default:
-                    System.out.println("\n\nInterrupcao " + irpt);
+                    if (SisOp_Diag.debug(SisOp_Diag.INTERRUPCAO)) System.out.println("\n\nInterrupcao " + irpt);
             }
         }
     }
@@ -165,114 +203,320 @@ public class SisOp {
     public class SysCallHandling {
         private SisOp so;
         public SysCallHandling(SisOp so) { this.so = so; }
-        public void stop() { 
-            so.processManager.terminaProcessoAtual(); 
+        public void stop(int core) { 
+            so.processManager.terminaProcessoAtual(core); 
         }
 
-        // Processa syscalls (leitura/escrita de E/S)
-        public void handle() {
-            int op = so.hw.cpu.getContextRegs()[8];
-            int addr = so.hw.cpu.getContextRegs()[9];
-            if (op == 1 || op == 2) {
-                SisOp_ProcessManager.PCB pcb = so.processManager.getRunningProcess();
+        // Processa syscalls (leitura/escrita de E/S) feitas no núcleo 'core'. r8 traz a operação
+        // (1 = READ, 2 = WRITE) somada a 10 vezes o número do dispositivo (0 = console, o que
+        // mantém os programas antigos); r9 traz o endereço lógico do dado.
+        public void handle(int core) {
+            Hardware.CPU cpu = so.hw.cpus[core];
+            int r8 = cpu.getContextRegs()[8];
+            int op = r8 % 10;
+            int dispositivo = r8 / 10;
+            int addr = cpu.getContextRegs()[9];
+            if (so.trace.isAtivo()) {
+                SisOp_ProcessManager.PCB atual = so.processManager.getRunningProcess(core);
+                so.trace.registra(Trace.SYSCALL, atual != null ? atual.getId() : -1, addr / so.TAM_PAG, -1, r8, core);
+            }
+            if ((op == 1 || op == 2) && so.deviceManager.existe(dispositivo)) {
+                SisOp_ProcessManager.PCB pcb = so.processManager.getRunningProcess(core);
                 int pag = addr / so.TAM_PAG;
                 if (pag < 0 || pag >= pcb.getPageTable().length) {
-                    so.interruptHandling.handle(Hardware.CPU.Interrupts.intEnderecoInvalido);
+                    so.interruptHandling.handle(core, Hardware.CPU.Interrupts.intEnderecoInvalido);
                     return; 
                 }
-                if (!pcb.getPageTable()[pag].valid) {
-                    System.out.println("--- SysCall: Página " + pag + " (para E/S) não está na memória. Disparando Page Fault. ---");
-                    pcb.setContext(so.hw.cpu.getContextPC(), so.hw.cpu.getContextRegs());
-                    so.hw.cpu.triggerPageFault(pag);
-                    so.interruptHandling.handle(Hardware.CPU.Interrupts.intPageFault);
-                    return; 
+                boolean residente;
+                synchronized (so.processManager.getSchedulerLock()) {
+                    residente = pcb.getPageTable()[pag].valid;
+                    if (residente) {
+                        cpu.setContext(cpu.getContextPC() + 1, cpu.getContextRegs());
+                        pcb.setContext(cpu.getContextPC(), cpu.getContextRegs());
+                        so.processManager.blockCurrentProcess(core, dispositivo == 0 ? "E/S_Console" : "E/S_Dispositivo_" + dispositivo);
+                        // fechada a fatia, a página do dado fica fixada até o processo voltar a
+                        // executar, para não ser vitimada enquanto o dispositivo trabalha
+                        so.gm.getFrameInfo(pcb.getPageTable()[pag].frameNumber).emES = true;
+                        so.deviceManager.addRequest(new IORequest(pcb, op, addr, dispositivo));
+                    }
+                }
+                if (!residente) {
+                    if (SisOp_Diag.debug(SisOp_Diag.SYSCALL)) System.out.println("--- SysCall: Página " + pag + " (para E/S) não está na memória. Disparando Page Fault. ---");
+                    // a CPU trata a falta ao fim desta instrução, ainda com este processo no núcleo,
+                    // e o SYSCALL é refeito quando a página chegar
+                    pcb.setContext(cpu.getContextPC(), cpu.getContextRegs());
+                    cpu.triggerPageFault(pag);
                 }
-                so.hw.cpu.setContext(so.hw.cpu.getContextPC() + 1, so.hw.cpu.getContextRegs());
-                pcb.setContext(so.hw.cpu.getContextPC(), so.hw.cpu.getContextRegs());
-                IORequest req = new IORequest(pcb, op, addr);
-                so.deviceManager.addRequest(req);
-                so.processManager.blockCurrentProcess("E/S_Console");
             } else {
-                System.out.println("SYSCALL: Operação " + op + " desconhecida.");
-                so.hw.cpu.setContext(so.hw.cpu.getContextPC() + 1, so.hw.cpu.getContextRegs());
+                if (SisOp_Diag.erro(SisOp_Diag.SYSCALL)) System.out.println("SYSCALL: Operação " + r8 + " desconhecida.");
+                cpu.setContext(cpu.getContextPC() + 1, cpu.getContextRegs());
             }
         }
     }
 
-    // Requisição de E/S (leitura ou escrita no console)
+    // Requisição de E/S (leitura ou escrita em um dispositivo)
     public class IORequest {
         public SisOp_ProcessManager.PCB pcb;
         public int operation; 
         public int address;
+        public int dispositivo;
         public IORequest(SisOp_ProcessManager.PCB pcb, int operation, int address) {
-            this.pcb = pcb; this.operation = operation; this.address = address;
+            this(pcb, operation, address, 0);
+        }
+        public IORequest(SisOp_ProcessManager.PCB pcb, int operation, int address, int dispositivo) {
+            this.pcb = pcb; this.operation = operation; this.address = address; this.dispositivo = dispositivo;
         }
     }
 
-    // Gerenciador de dispositivos: processa E/S em thread separada
-    public class DeviceManager implements Runnable {
+    // Origem dos valores lidos por um dispositivo de E/S
+    public interface FonteEntrada {
+        String getNome();
+        // Valor para o READ do processo; null se não há valor (o READ recebe 0)
+        Integer le(SisOp_ProcessManager.PCB pcb) throws InterruptedException;
+    }
+
+    // Console: pede o valor ao usuário pelo shell. Os dispositivos de console compartilham o
+    // terminal e são atendidos um de cada vez; fora do modo interativo (lote) não há valor.
+    public class ConsoleES implements FonteEntrada {
+        public String getNome() { return "console"; }
+        public Integer le(SisOp_ProcessManager.PCB pcb) throws InterruptedException {
+            if (!deviceManager.isInterativo()) return null;
+            Sistema host = getSistemaHost();
+            synchronized (deviceManager.terminal) {
+                while (true) {
+                    try {
+                        return Integer.parseInt(host.leEntrada(pcb.getId()).trim());
+                    } catch (NumberFormatException e) {
+                        if (SisOp_Diag.erro(SisOp_Diag.ES)) System.out.println("--- Dispositivo de E/S: ERRO! Entrada inválida. Tente novamente. ---");
+                    }
+                }
+            }
+        }
+    }
+
+    // Arquivo: os inteiros do arquivo (separados por espaços ou linhas), em ordem; esgotado,
+    // não há mais valores
+    public static class ArquivoES implements FonteEntrada {
+        private final String arquivo;
+        private final Queue<Integer> valores = new ArrayDeque<>();
+        public ArquivoES(String arquivo) throws IOException {
+            this.arquivo = arquivo;
+            for (String v : new String(Files.readAllBytes(Paths.get(arquivo))).trim().split("\\s+")) {
+                if (!v.isEmpty()) valores.add(Integer.parseInt(v));
+            }
+        }
+        public String getNome() { return "arquivo:" + arquivo; }
+        public synchronized Integer le(SisOp_ProcessManager.PCB pcb) { return valores.poll(); }
+    }
+
+    // Roteiro: uma sequência fixa de valores, repetida em ciclo
+    public static class RoteiroES implements FonteEntrada {
+        private final int[] valores;
+        private int proximo = 0;
+        public RoteiroES(int[] valores) { this.valores = valores; }
+        public String getNome() {
+            StringBuilder sb = new StringBuilder("roteiro:");
+            for (int i = 0; i < valores.length; i++) sb.append(i > 0 ? "+" : "").append(valores[i]);
+            return sb.toString();
+        }
+        public synchronized Integer le(SisOp_ProcessManager.PCB pcb) {
+            int v = valores[proximo];
+            proximo = (proximo + 1) % valores.length;
+            return v;
+        }
+    }
+
+    // Gerenciador de dispositivos: N dispositivos independentes, cada um com sua fila e sua
+    // thread (virtual, quando a JVM oferece), de modo que processos presos em E/S de dispositivos
+    // diferentes avançam em paralelo. O dispositivo de uma requisição vem do SYSCALL.
+    public class DeviceManager {
         private SisOp so;
-        private Queue<IORequest> requestQueue;
-        private final Object ioQueueLock = new Object(); 
+        private volatile List<Dispositivo> dispositivos = new ArrayList<>();
+        private long latencia = 1000;   // em ticks do relógio
+        // valores roteirizados para os READ de cada processo (execução em lote), usados antes da
+        // fonte do dispositivo; sem roteiro e sem console interativo, o READ recebe 0
+        private final Map<Integer, Queue<Integer>> roteiro = new HashMap<>();
+        private volatile boolean interativo = true;
+        final Object terminal = new Object();   // vez no terminal entre os dispositivos de console
         public DeviceManager(SisOp so) {
             this.so = so;
-            this.requestQueue = new LinkedList<>();
+        }
+
+        public void setLatencia(long ticks) { this.latencia = ticks; }
+        public void setInterativo(boolean interativo) { this.interativo = interativo; }
+        public boolean isInterativo() { return interativo; }
+
+        // Cria os dispositivos descritos por 'spec' (fontes separadas por vírgula: console,
+        // arquivo:caminho, roteiro:v1+v2+...), numerados a partir de 0, e encerra os anteriores.
+        // Retorna false (sem alterar nada) se a descrição for inválida.
+        public boolean configura(String spec) {
+            List<FonteEntrada> fontes = new ArrayList<>();
+            for (String parte : spec.split(",")) {
+                String[] kv = parte.trim().split(":", 2);
+                try {
+                    switch (kv[0].toLowerCase()) {
+                        case "console": fontes.add(new ConsoleES()); break;
+                        case "arquivo": fontes.add(new ArquivoES(kv[1])); break;
+                        case "roteiro": {
+                            String[] vs = kv[1].split("\\+");
+                            int[] valores = new int[vs.length];
+                            for (int i = 0; i < vs.length; i++) valores[i] = Integer.parseInt(vs[i].trim());
+                            fontes.add(new RoteiroES(valores));
+                            break;
+                        }
+                        default: return false;
+                    }
+                } catch (IOException | RuntimeException e) {
+                    return false;
+                }
+            }
+            List<Dispositivo> novos = new ArrayList<>();
+            for (FonteEntrada fonte : fontes) novos.add(new Dispositivo(novos.size(), fonte));
+            List<Dispositivo> antigos = dispositivos;
+            dispositivos = novos;
+            for (Dispositivo d : antigos) d.encerra();
+            for (Dispositivo d : novos) d.inicia();
+            return true;
+        }
+
+        public int getQtdDispositivos() { return dispositivos.size(); }
+        public boolean existe(int dispositivo) { return dispositivo >= 0 && dispositivo < dispositivos.size(); }
+
+        // Descrição dos dispositivos e dos pedidos atendidos por cada um, para o stats
+        public String descreve() {
+            StringBuilder sb = new StringBuilder();
+            for (Dispositivo d : dispositivos) {
+                if (sb.length() > 0) sb.append(", ");
+                sb.append(d.numero).append('=').append(d.fonte.getNome()).append(" (").append(d.atendidos).append(" pedidos)");
+            }
+            return sb.toString();
+        }
+
+        // Define os valores que os READ do processo vão receber, na ordem
+        public void roteiriza(int pid, List<Integer> valores) {
+            synchronized (roteiro) { roteiro.put(pid, new ArrayDeque<>(valores)); }
+        }
+
+        // Descarta o roteiro que sobrou de um processo que saiu (o id pode ser reaproveitado)
+        public void esquece(int pid) {
+            synchronized (roteiro) { roteiro.remove(pid); }
+        }
+
+        // Próximo valor roteirizado do processo, ou null se não houver
+        private Integer proximaEntrada(int pid) {
+            synchronized (roteiro) {
+                Queue<Integer> valores = roteiro.get(pid);
+                if (valores == null) return null;
+                Integer v = valores.poll();
+                if (valores.isEmpty()) roteiro.remove(pid);
+                return v;
+            }
         }
         
-        // Adiciona requisição de E/S na fila
+        // Adiciona requisição de E/S na fila do seu dispositivo
         public void addRequest(IORequest request) {
-            synchronized (ioQueueLock) {
-                requestQueue.add(request);
-                ioQueueLock.notify(); 
-            }
+            dispositivos.get(request.dispositivo).adiciona(request);
         }
-        // Thread que processa requisições de E/S
-        @Override
-        public void run() {
-            while (true) {
-                IORequest currentRequest;
+
+        // Um dispositivo: fila própria e uma thread que atende um pedido por vez
+        private class Dispositivo implements Runnable {
+            final int numero;
+            final FonteEntrada fonte;
+            private final Queue<IORequest> requestQueue = new LinkedList<>();
+            private final Object ioQueueLock = new Object(); 
+            private boolean ocioso = true;  // parado com a fila vazia (não segura o relógio)
+            private volatile long atendidos = 0;
+            private Thread thread;
+
+            Dispositivo(int numero, FonteEntrada fonte) {
+                this.numero = numero;
+                this.fonte = fonte;
+            }
+
+            void inicia() {
+                thread = criaThread(this, "ES-" + numero);
+                thread.start();
+            }
+
+            void encerra() { thread.interrupt(); }
+
+            void adiciona(IORequest request) {
                 synchronized (ioQueueLock) {
-                    while (requestQueue.isEmpty()) {
-                        try { ioQueueLock.wait(); } catch (InterruptedException e) {}
+                    if (ocioso) {
+                        ocioso = false;
+                        so.relogio.ocupa();
+                    }
+                    requestQueue.add(request);
+                    ioQueueLock.notify(); 
+                }
+            }
+
+            // Thread que processa as requisições do dispositivo
+            @Override
+            public void run() {
+                while (true) {
+                    IORequest currentRequest;
+                    boolean parou = false;
+                    synchronized (ioQueueLock) {
+                        if (requestQueue.isEmpty() && !ocioso) {
+                            ocioso = true;
+                            parou = true;
+                        }
+                    }
+                    if (parou) so.relogio.libera();
+                    synchronized (ioQueueLock) {
+                        while (requestQueue.isEmpty()) {
+                            try { ioQueueLock.wait(); } catch (InterruptedException e) { return; }
+                        }
+                        currentRequest = requestQueue.poll();
                     }
-                    currentRequest = requestQueue.poll();
+                    atende(currentRequest);
+                    atendidos++;
+                    so.processManager.unblockProcess(currentRequest.pcb, numero == 0 ? "Fim_E/S_Console" : "Fim_E/S_Dispositivo_" + numero);
                 }
-                System.out.println("--- Dispositivo de E/S: Iniciando operação " + 
+            }
+
+            private void atende(IORequest currentRequest) {
+                String nome = numero == 0 ? "Dispositivo de E/S" : "Dispositivo de E/S " + numero;
+                if (SisOp_Diag.debug(SisOp_Diag.ES)) System.out.println("--- " + nome + ": Iniciando operação " + 
                                    (currentRequest.operation == 1 ? "READ" : "WRITE") + 
                                    " para o Processo " + currentRequest.pcb.getId() + " ---");
-                try { Thread.sleep(1000); } catch (InterruptedException e) {} 
+                so.relogio.espera(latencia);
+                if (currentRequest.pcb.getState() == SisOp_ProcessManager.ProcessState.TERMINATED) {
+                    if (SisOp_Diag.debug(SisOp_Diag.ES)) System.out.println("--- " + nome + ": Processo " + currentRequest.pcb.getId() + " saiu do sistema; pedido descartado. ---");
+                    return;
+                }
                 if (currentRequest.operation == 1) { 
-                    Sistema host = so.getSistemaHost();
-                    Object hostLock = host.getIoConsoleLock();
-                    int valor = 0;
-                    boolean inputValido = false;
-                    while (!inputValido) {
-                        try {
-                            host.startWaitingForIO(currentRequest.pcb.getId());
-                            synchronized (hostLock) { hostLock.wait(); }
-                            String input = host.getIoInputBuffer();
-                            valor = Integer.parseInt(input.trim());
-                            inputValido = true;
-                        } catch (NumberFormatException e) {
-                            System.out.println("--- Dispositivo de E/S: ERRO! Entrada inválida. Tente novamente. ---");
-                        } catch (InterruptedException e) {
-                            inputValido = true; valor = 0;
-                        } catch (Exception e) {}
+                    Integer valor = proximaEntrada(currentRequest.pcb.getId());
+                    if (valor != null) {
+                        if (SisOp_Diag.debug(SisOp_Diag.ES)) System.out.println("--- " + nome + ": Entrada roteirizada " + valor + " para o Processo " + currentRequest.pcb.getId() + ". ---");
+                    } else {
+                        try { valor = fonte.le(currentRequest.pcb); } catch (InterruptedException e) { valor = 0; }
+                        if (valor == null) {
+                            valor = 0;
+                            if (SisOp_Diag.erro(SisOp_Diag.ES)) System.out.println("--- " + nome + ": ERRO! Processo " + currentRequest.pcb.getId() + " sem entrada (" + fonte.getNome() + "); usando 0. ---");
+                        }
                     }
                     Hardware.PageTableEntry[] pcbPageTable = currentRequest.pcb.getPageTable();
                     int logicalAddr = currentRequest.address;
                     int pag = logicalAddr / so.TAM_PAG;
                     int off = logicalAddr % so.TAM_PAG;
                     int endFis = -1; 
-                    if (pag >= 0 && pag < pcbPageTable.length && pcbPageTable[pag].valid) {
-                        int frame = pcbPageTable[pag].frameNumber;
-                        endFis = (frame * so.TAM_PAG) + off;
+                    // a tradução e a escrita ficam sob o schedulerLock: se o processo for removido
+                    // enquanto espera a entrada, seus frames podem já pertencer a outro
+                    synchronized (so.processManager.getSchedulerLock()) {
+                        if (currentRequest.pcb.getState() != SisOp_ProcessManager.ProcessState.TERMINATED
+                                && pag >= 0 && pag < pcbPageTable.length && pcbPageTable[pag].valid) {
+                            int frame = pcbPageTable[pag].frameNumber;
+                            endFis = (frame * so.TAM_PAG) + off;
+                            so.hw.mem.setP(endFis, valor);
+                            pcbPageTable[pag].modified = true;
+                        }
                     }
                     if (endFis >= 0) {
-                        so.hw.mem.pos[endFis].p = valor;
-                        System.out.println("--- Dispositivo de E/S: Valor " + valor + " escrito no endereço lógico " + currentRequest.address + " (físico " + endFis + "). ---");
+                        if (SisOp_Diag.debug(SisOp_Diag.ES)) System.out.println("--- " + nome + ": Valor " + valor + " escrito no endereço lógico " + currentRequest.address + " (físico " + endFis + "). ---");
                     } else {
-                        System.out.println("--- Dispositivo de E/S: ERRO! Tradução de endereço falhou (página " + pag + " não é válida?). ---");
+                        if (SisOp_Diag.erro(SisOp_Diag.ES)) System.out.println("--- " + nome + ": ERRO! Tradução de endereço falhou (página " + pag + " não é válida?). ---");
                     }
                 } else if (currentRequest.operation == 2) { 
                     Hardware.PageTableEntry[] pcbPageTable = currentRequest.pcb.getPageTable();
@@ -286,51 +530,461 @@ public class SisOp {
                     }
                     int valor = -1;
                     if (endFis >= 0) {
-                        valor = so.hw.mem.pos[endFis].p;
+                        valor = so.hw.mem.p(endFis);
                     }
-                    System.out.println("\n>>> Dispositivo de E/S (OUT do Processo " + currentRequest.pcb.getId() + "): " + valor);
-                    System.out.println("--- Dispositivo de E/S: Escrita concluída. ---");
+                    if (SisOp_Diag.info(SisOp_Diag.ES)) System.out.println("\n>>> " + nome + " (OUT do Processo " + currentRequest.pcb.getId() + "): " + valor);
+                    if (SisOp_Diag.debug(SisOp_Diag.ES)) System.out.println("--- " + nome + ": Escrita concluída. ---");
                 }
-                so.processManager.unblockProcess(currentRequest.pcb, "Fim_E/S_Console");
             }
         }
     }
 
+    // Thread de um dispositivo: virtual quando a JVM oferece (Java 21+, obtida por reflexão para
+    // o código compilar nas versões anteriores), senão uma thread comum em segundo plano
+    static Thread criaThread(Runnable tarefa, String nome) {
+        try {
+            Class<?> construtor = Class.forName("java.lang.Thread$Builder");
+            Object b = Thread.class.getMethod("ofVirtual").invoke(null);
+            b = construtor.getMethod("name", String.class).invoke(b, nome);
+            return (Thread) construtor.getMethod("unstarted", Runnable.class).invoke(b, tarefa);
+        } catch (ReflectiveOperationException e) {
+            Thread t = new Thread(tarefa, nome);
+            t.setDaemon(true);
+            return t;
+        }
+    }
+
     // Gerenciador de memória virtual: trata page faults
     public class VMManager {
         private SisOp so;
+        private long pageFaults = 0;
+        private long vitimizacoes = 0;
+        private long paginasLimpas = 0;
+        // processos cuja falta não achou frame livre nem vítima; tentam de novo quando um frame muda de estado
+        private final List<SisOp_ProcessManager.PCB> esperandoFrame = new ArrayList<>();
+        // leitura antecipada: janela máxima (0 desliga) e se ela se adapta ao padrão de acesso
+        private int janelaMaxima = 0;
+        private boolean adaptativa = true;
+        private long paginasAntecipadas = 0;
+        private long antecipacoesAproveitadas = 0;
         public VMManager(SisOp so) { this.so = so; }
 
-        // Trata falta de página: busca frame livre ou vitimiza
-        public void handlePageFault(SisOp_ProcessManager.PCB pcb, int page) {
-            System.out.println("--- VMManager: Tratando Page Fault para Processo " + pcb.getId() + ", Página " + page + " ---");
-            int frame = so.gm.findFreeFrame();
-            if (frame != -1) {
-                System.out.println("--- VMManager: Frame livre " + frame + " encontrado.");
-                so.gm.occupyFrame(frame, pcb, page);
-                so.diskManager.requestLoad(pcb, page, frame);
-                so.processManager.blockCurrentProcess("Page_Fault");
-            } else {
-                System.out.println("--- VMManager: Nenhum frame livre. Iniciando vitimização.");
-                int victimFrame = so.gm.selectVictimFrame();
-                SisOp_GM.FrameInfo victimInfo = so.gm.getFrameInfo(victimFrame);
-                if (victimInfo == null || victimInfo.waiter != null) {
-                    System.out.println("--- VMManager: ERRO! Vitimização falhou (vítima inválida ou já esperando).");
-                    so.processManager.blockCurrentProcess("Page_Fault_Falha"); 
-                    return;
+        public void setAntecipacao(int janelaMaxima, boolean adaptativa) {
+            this.janelaMaxima = Math.max(0, janelaMaxima);
+            this.adaptativa = adaptativa;
+        }
+        public int getJanelaMaxima() { return janelaMaxima; }
+        public long getPaginasAntecipadas() { return paginasAntecipadas; }
+        public long getAntecipacoesAproveitadas() { return antecipacoesAproveitadas; }
+
+        public long getPageFaults() { return pageFaults; }
+        public long getVitimizacoes() { return vitimizacoes; }
+        public long getPaginasLimpas() { return paginasLimpas; }
+        public void contaVitimizacao(int frame, SisOp_GM.FrameInfo victimInfo) {
+            vitimizacoes++;
+            so.trace.registra(Trace.VITIMA, victimInfo.pcb.getId(), victimInfo.pageNumber, frame, 0, 0);
+        }
+
+        // Retira da memória a página que ocupa o frame vítima. Retorna true se a página estava
+        // limpa: a cópia no swap (ou a imagem do programa) continua válida e o frame já pode ser
+        // reaproveitado. Se estava suja, marca-a como em disco e cabe ao chamador gravá-la no swap.
+        public boolean despejaPagina(SisOp_GM.FrameInfo victimInfo) {
+            Hardware.PageTableEntry entry = victimInfo.pcb.getPageTable()[victimInfo.pageNumber];
+            entry.valid = false;
+            so.hw.invalidateTLB(victimInfo.pcb.getId(), victimInfo.pageNumber);
+            if (!entry.modified) {
+                paginasLimpas++;
+                return true;
+            }
+            if (entry.diskAddress < 0) entry.diskAddress = so.swap.aloca();
+            entry.onDisk = true;
+            return false;
+        }
+
+        // Se a página ainda está no frame esperando a gravação no swap, cancela o SAVE e a revalida.
+        // Quem aguardava o frame é desbloqueado e tentará de novo, sofrendo nova falta.
+        private boolean reaproveitaSavePendente(SisOp_ProcessManager.PCB pcb, int page) {
+            DiskRequest save = so.diskManager.cancelaSave(pcb, page);
+            if (save == null) return false;
+            SisOp_GM.FrameInfo info = so.gm.getFrameInfo(save.frame);
+            SisOp_ProcessManager.PCB waiter = info != null ? info.waiter : null;
+            so.gm.setWaiter(save.frame, null, -1);
+            Hardware.PageTableEntry entry = pcb.getPageTable()[page];
+            entry.frameNumber = save.frame;
+            entry.valid = true;
+            entry.referenced = true;
+            if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: SAVE pendente da Página " + page + " cancelado; página revalidada no Frame " + save.frame + ".");
+            if (waiter != null) {
+                so.processManager.unblockProcess(waiter, "Cancelamento_Swap");
+            }
+            return true;
+        }
+
+        // Um frame terminou de ser carregado ou foi liberado: quem não achou vítima tenta de novo
+        public void acordaEsperandoFrame() {
+            synchronized (so.processManager.getSchedulerLock()) {
+                if (esperandoFrame.isEmpty()) return;
+                List<SisOp_ProcessManager.PCB> acordar = new ArrayList<>(esperandoFrame);
+                esperandoFrame.clear();
+                for (SisOp_ProcessManager.PCB p : acordar) {
+                    if (p.getState() == SisOp_ProcessManager.ProcessState.BLOCKED) {
+                        so.processManager.unblockProcess(p, "Nova_Tentativa_Frame");
+                    }
                 }
-                System.out.println("--- VMManager: Frame " + victimFrame + " (Processo " + victimInfo.pcb.getId() + ", Página " + victimInfo.pageNumber + ") foi vitimado.");
-                victimInfo.pcb.getPageTable()[victimInfo.pageNumber].valid = false;
-                victimInfo.pcb.getPageTable()[victimInfo.pageNumber].onDisk = true;
+            }
+        }
+
+        // Leitura antecipada: após a falta na página 'page', enfileira as páginas seguintes que
+        // ainda não estão na memória, usando apenas frames livres (nunca vitimiza para antecipar).
+        // No modo adaptativo a janela dobra enquanto as faltas seguem em sequência e cai pela
+        // metade a cada salto, até desligar para padrões aleatórios.
+        private void antecipa(SisOp_ProcessManager.PCB pcb, int page) {
+            if (janelaMaxima == 0) return;
+            int janela;
+            if (!adaptativa) {
+                janela = janelaMaxima;
+            } else {
+                janela = pcb.getJanelaAntecipacao();
+                if (janela < 0) janela = 1;
+                else if (page == pcb.getProximaFaltaSequencial()) janela = Math.min(janelaMaxima, Math.max(1, janela * 2));
+                else janela = janela / 2;
+                pcb.setJanelaAntecipacao(janela);
+            }
+            Hardware.PageTableEntry[] tabela = pcb.getPageTable();
+            int ultima = page;
+            for (int p = page + 1; p <= page + janela && p < tabela.length; p++) {
+                if (tabela[p].valid || so.gm.frameDaPagina(pcb, p) != -1) { ultima = p; continue; }
+                int frame = so.gm.findFreeFrame();
+                if (frame == -1) break;
+                so.gm.occupyFrame(frame, pcb, p);
+                so.diskManager.requestPrefetch(pcb, p, frame);
+                paginasAntecipadas++;
+                ultima = p;
+            }
+            pcb.setProximaFaltaSequencial(ultima + 1);
+        }
+
+        // A página já está sendo trazida por leitura antecipada: o processo só espera a carga terminar
+        private boolean aguardaAntecipacao(int core, SisOp_ProcessManager.PCB pcb, int page) {
+            int frame = so.gm.frameDaPagina(pcb, page);
+            if (frame == -1 || !so.diskManager.promoveAntecipacao(pcb, page)) return false;
+            if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: Página " + page + " já está sendo carregada antecipadamente no Frame " + frame + ".");
+            antecipacoesAproveitadas++;
+            so.processManager.blockCurrentProcess(core, "Page_Fault_Antecipada");
+            return true;
+        }
+
+        // Uma página só pode ser despejada se estiver limpa ou se houver slot de swap para ela
+        public boolean podeDespejar(SisOp_GM.FrameInfo victimInfo) {
+            Hardware.PageTableEntry entry = victimInfo.pcb.getPageTable()[victimInfo.pageNumber];
+            return !entry.modified || entry.diskAddress >= 0 || so.swap.getSlotsLivres() > 0;
+        }
+
+        // Trata falta de página: busca frame livre ou vitimiza.
+        // Executa sob o schedulerLock, pois os frames são disputados por todos os núcleos.
+        public void handlePageFault(int core, SisOp_ProcessManager.PCB pcb, int page) {
+            synchronized (so.processManager.getSchedulerLock()) {
+                if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: Tratando Page Fault para Processo " + pcb.getId() + ", Página " + page + " ---");
+                Hardware.PageTableEntry entry = pcb.getPageTable()[page];
+                if (entry.valid) return;   // já tratada (falta sinalizada duas vezes)
+                pageFaults++;
+                so.trace.registra(Trace.FALTA, pcb.getId(), page, -1, 0, core);
+                pcb.registraFalta(page);
+                so.loadController.registraFalta(pcb);
+                boolean doSwap = entry.onDisk;
+                boolean menor = reaproveitaSavePendente(pcb, page);
+                pcb.classificaFalta(menor, doSwap);
+                so.estatisticas.registraFalta(menor, doSwap);
+                if (menor) return;
+                if (aguardaAntecipacao(core, pcb, page)) return;
+                int frame = so.gm.findFreeFrame();
+                if (frame != -1) {
+                    if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: Frame livre " + frame + " encontrado.");
+                    so.gm.occupyFrame(frame, pcb, page);
+                    so.diskManager.requestLoad(pcb, page, frame);
+                    antecipa(pcb, page);
+                    so.processManager.blockCurrentProcess(core, "Page_Fault");
+                } else {
+                    if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: Nenhum frame livre. Iniciando vitimização.");
+                    int victimFrame = so.gm.selectVictimFrame(pcb);
+                    SisOp_GM.FrameInfo victimInfo = so.gm.getFrameInfo(victimFrame);
+                    if (victimInfo == null || victimInfo.waiter != null || !podeDespejar(victimInfo)) {
+                        if (SisOp_Diag.info(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: ERRO! Vitimização falhou (vítima inválida, já esperando ou swap cheio).");
+                        so.processManager.blockCurrentProcess(core, "Page_Fault_Falha"); 
+                        esperandoFrame.add(pcb);   // depois de bloqueado, para que o próximo aviso o acorde
+                        return;
+                    }
+                    if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: Frame " + victimFrame + " (Processo " + victimInfo.pcb.getId() + ", Página " + victimInfo.pageNumber + ") foi vitimado.");
+                    contaVitimizacao(victimFrame, victimInfo);
+                    if (despejaPagina(victimInfo)) {
+                        if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- VMManager: Página vítima limpa; frame " + victimFrame + " reaproveitado sem gravação no swap.");
+                        so.gm.occupyFrame(victimFrame, pcb, page);
+                        so.diskManager.requestLoad(pcb, page, victimFrame);
+                        antecipa(pcb, page);
+                        so.processManager.blockCurrentProcess(core, "Page_Fault");
+                        return;
+                    }
                 
-                so.gm.setWaiter(victimFrame, pcb, page);
+                    so.gm.setWaiter(victimFrame, pcb, page);
                 
-                so.diskManager.requestSave(victimInfo.pcb, victimInfo.pageNumber, victimFrame);
-                so.processManager.blockCurrentProcess("Page_Fault_Vitima");
+                    so.diskManager.requestSave(victimInfo.pcb, victimInfo.pageNumber, victimFrame);
+                    antecipa(pcb, page);
+                    so.processManager.blockCurrentProcess(core, "Page_Fault_Vitima");
+                }
             }
         }
     }
     
+    // Controle de carga por frequência de faltas (PFF): mede a taxa global de faltas por mil
+    // instruções executadas. Acima do limite o sistema está em thrashing e o processo pronto
+    // ativado mais recentemente é suspenso, devolvendo seus frames; abaixo da metade do limite
+    // os suspensos voltam, em ordem, quando há frames livres para o seu conjunto de trabalho.
+    public class LoadController {
+        private SisOp so;
+        private int limite = 0;             // faltas por mil instruções; 0 desliga
+        private long tau = 500;             // janela (em instruções do processo) do conjunto de trabalho
+        private final int janelaInstrucoes = 2000;
+        private final int minimoFaltas = 8;
+        private long faltasJanela = 0;
+        private long instrucoesJanela = 0;
+        private int recuo = 1;              // sem ter quem suspender, a janela seguinte é 'recuo' vezes maior
+        private static final int RECUO_MAXIMO = 64;
+        private long proximaAtivacao = 0;
+        private long suspensoes = 0;
+        private long retomadas = 0;
+        private final Deque<SisOp_ProcessManager.PCB> suspensos = new ArrayDeque<>();
+
+        public LoadController(SisOp so) { this.so = so; }
+
+        public void setLimites(int limite, long tau) {
+            this.limite = Math.max(0, limite);
+            this.tau = Math.max(1, tau);
+        }
+        public int getLimite() { return limite; }
+        public long getSuspensoes() { return suspensoes; }
+        public long getRetomadas() { return retomadas; }
+        public int getQtdSuspensos() { synchronized (so.processManager.getSchedulerLock()) { return suspensos.size(); } }
+        public long getTau() { return tau; }
+
+        public void processoAdmitido(SisOp_ProcessManager.PCB pcb) {
+            synchronized (so.processManager.getSchedulerLock()) { pcb.setAtivacao(proximaAtivacao++); }
+        }
+
+        // Taxa de faltas da janela atual, em faltas por mil instruções
+        private long taxa() {
+            return faltasJanela * 1000 / Math.max(1, instrucoesJanela);
+        }
+
+        // Conta a falta e, acima do limite, suspende um processo. Se só resta um processo ativo,
+        // ele recebe os frames que os suspensos ainda retêm e a próxima verificação espera uma
+        // janela maior (a mensagem sai só na primeira vez), até a taxa cair.
+        public void registraFalta(SisOp_ProcessManager.PCB pcb) {
+            synchronized (so.processManager.getSchedulerLock()) {
+                faltasJanela++;
+                if (limite > 0 && faltasJanela >= (long) minimoFaltas * recuo && taxa() > limite) {
+                    if (suspendeUm()) {
+                        if (SisOp_Diag.info(SisOp_Diag.CARGA)) System.out.println("--- Controle de carga: " + taxa() + " faltas/mil instruções (limite " + limite + "). Reduzindo a multiprogramação.");
+                        recuo = 1;
+                    } else {
+                        if (recuo == 1 && SisOp_Diag.info(SisOp_Diag.CARGA)) System.out.println("--- Controle de carga: " + taxa() + " faltas/mil instruções (limite " + limite + "), mas não há processo a suspender. Liberando os frames retidos pelos suspensos.");
+                        for (SisOp_ProcessManager.PCB suspenso : suspensos) liberaFrames(suspenso);
+                        recuo = Math.min(recuo * 2, RECUO_MAXIMO);
+                    }
+                    faltasJanela = 0;
+                    instrucoesJanela = 0;
+                }
+            }
+        }
+
+        public void registraExecucao(int n) {
+            synchronized (so.processManager.getSchedulerLock()) {
+                instrucoesJanela += n;
+                if (instrucoesJanela >= janelaInstrucoes) {
+                    boolean aliviado = taxa() * 2 < limite;
+                    faltasJanela = 0;
+                    instrucoesJanela = 0;
+                    if (aliviado) {
+                        recuo = 1;
+                        retomaPossiveis();
+                    }
+                }
+            }
+        }
+
+        // Um processo terminou ou foi removido: libera frames, talvez caiba um suspenso
+        public void processoSaiu(SisOp_ProcessManager.PCB pcb) {
+            synchronized (so.processManager.getSchedulerLock()) {
+                suspensos.remove(pcb);
+                retomaPossiveis();
+            }
+        }
+
+        // Suspende o processo (pronto ou bloqueado) ativado mais recentemente, desde que reste outro ativo
+        private boolean suspendeUm() {
+            if (so.processManager.getQtdAtivos() <= 1) return false;
+            SisOp_ProcessManager.PCB escolhido = so.processManager.getSuspensivelMaisRecente();
+            if (escolhido == null || !so.processManager.suspende(escolhido)) return false;
+            suspensoes++;
+            liberaFrames(escolhido);
+            suspensos.addLast(escolhido);
+            return true;
+        }
+
+        // Devolve os frames do processo suspenso: páginas limpas saem na hora, sujas vão ao swap.
+        // Frames ainda em carga ficam com ele até a carga terminar (e então são devolvidos).
+        public void liberaFrames(SisOp_ProcessManager.PCB pcb) {
+            for (int frame : so.gm.getResidentFrames(pcb)) {
+                SisOp_GM.FrameInfo info = so.gm.getFrameInfo(frame);
+                if (info == null || info.waiter != null) continue;
+                // um processo ainda bloqueado mantém o dado de uma E/S em curso
+                if (info.emES && pcb.getState() == SisOp_ProcessManager.ProcessState.BLOCKED) continue;
+                Hardware.PageTableEntry entry = pcb.getPageTable()[info.pageNumber];
+                if (!entry.valid || !so.vmManager.podeDespejar(info)) continue;
+                if (so.vmManager.despejaPagina(info)) {
+                    so.gm.freeFrame(frame);
+                } else {
+                    so.diskManager.requestSave(pcb, info.pageNumber, frame);
+                }
+            }
+            so.vmManager.acordaEsperandoFrame();
+        }
+
+        // Retoma suspensos, na ordem de suspensão, enquanto houver frames livres para o conjunto
+        // de trabalho estimado de cada um (ou se não restou nenhum processo ativo)
+        private void retomaPossiveis() {
+            while (!suspensos.isEmpty()) {
+                SisOp_ProcessManager.PCB pcb = suspensos.peekFirst();
+                boolean semAtivos = so.processManager.getQtdAtivos() == 0;
+                if (!semAtivos && so.gm.getFreeFrameCount() < pcb.conjuntoTrabalho(tau)) break;
+                suspensos.pollFirst();
+                pcb.setAtivacao(proximaAtivacao++);
+                retomadas++;
+                so.processManager.retoma(pcb);
+            }
+        }
+    }
+
+    // Relógio da simulação. No modo real um tick é um milissegundo e as latências são pausas
+    // de verdade. No modo virtual o tempo só anda por eventos: cada instrução executada avança
+    // um tick (com vários núcleos o relógio soma as instruções de todos), e quando nenhum
+    // processo pode executar e nenhum dispositivo tem trabalho no instante atual o relógio
+    // salta direto para o próximo prazo pendente (fila de prioridade por instante).
+    public class Relogio implements Runnable {
+        private SisOp so;
+        private boolean virtual = false;
+        private long agora = 0;
+        private int ocupados = 0;       // dispositivos com trabalho que não depende do tempo passar
+        private long saltos = 0;
+        private final long inicio = System.currentTimeMillis();
+        private final PriorityQueue<Long> prazos = new PriorityQueue<>();
+        private volatile Thread thread;
+
+        public Relogio(SisOp so) { this.so = so; }
+
+        // Liga o modo virtual e inicia a thread que faz o tempo saltar quando tudo está ocioso
+        public void setVirtual(boolean virtual) {
+            if (virtual && !this.virtual) {
+                this.virtual = true;
+                thread = new Thread(this, "Relogio");
+                thread.setDaemon(true);
+                thread.start();
+            }
+        }
+        public boolean isVirtual() { return virtual; }
+        public synchronized long agora() { return virtual ? agora : System.currentTimeMillis() - inicio; }
+        public synchronized long getSaltos() { return saltos; }
+
+        // Um dispositivo saiu do repouso: enquanto estiver ocupado o tempo não salta
+        public void ocupa() {
+            if (!virtual) return;
+            synchronized (this) { ocupados++; }
+        }
+
+        // O dispositivo voltou ao repouso
+        public void libera() {
+            if (!virtual) return;
+            synchronized (this) { ocupados--; }
+            avisa();
+        }
+
+        // Espera 'ticks' unidades de tempo. No modo virtual o dispositivo deixa de contar como
+        // ocupado até o prazo vencer, o que permite ao relógio saltar até lá.
+        public void espera(long ticks) {
+            if (!virtual) {
+                try { Thread.sleep(ticks); } catch (InterruptedException e) {}
+                return;
+            }
+            long alvo;
+            synchronized (this) {
+                alvo = agora + ticks;
+                prazos.add(alvo);
+                ocupados--;
+            }
+            avisa();
+            synchronized (this) {
+                while (agora < alvo) {
+                    try { wait(); } catch (InterruptedException e) { return; }
+                }
+            }
+        }
+
+        // Avança o tempo pelas instruções executadas numa fatia
+        public void avanca(long ticks) {
+            if (!virtual || ticks <= 0) return;
+            synchronized (this) {
+                agora += ticks;
+                venceAte(agora);
+            }
+        }
+
+        // Retira os prazos vencidos; cada um devolve um dispositivo ao estado ocupado
+        private void venceAte(long instante) {
+            boolean venceu = false;
+            while (!prazos.isEmpty() && prazos.peek() <= instante) {
+                prazos.poll();
+                ocupados++;
+                venceu = true;
+            }
+            if (venceu) notifyAll();
+        }
+
+        // Algo que impede ou permite o salto mudou: a thread do relógio reavalia
+        public void avisa() {
+            Thread t = thread;
+            if (t != null) LockSupport.unpark(t);
+        }
+
+        // Thread do modo virtual: com o sistema ocioso, salta para o próximo prazo. A condição é
+        // testada sob o schedulerLock; fora dele a thread dorme até um avisa() (um aviso entre o
+        // teste e o park não se perde, pois o unpark fica guardado).
+        // Ordem de travas: schedulerLock e depois o relógio (nunca o contrário).
+        @Override
+        public void run() {
+            Object lock = so.processManager.getSchedulerLock();
+            while (!Thread.currentThread().isInterrupted()) {
+                boolean saltou = false;
+                synchronized (lock) {
+                    if (!so.processManager.hasRunningProcess() && !so.processManager.hasReadyProcess() && podeSaltar()) {
+                        synchronized (this) {
+                            long proximo = prazos.peek();
+                            if (proximo > agora) {
+                                agora = proximo;
+                                saltos++;
+                            }
+                            venceAte(agora);
+                        }
+                        saltou = true;
+                    }
+                }
+                if (!saltou) LockSupport.park(this);
+            }
+        }
+
+        private synchronized boolean podeSaltar() {
+            return ocupados == 0 && !prazos.isEmpty();
+        }
+    }
+
     // Requisição de operação em disco (swap ou carga de programa)
     public class DiskRequest {
         public enum OpType { LOAD_FROM_PROG, LOAD_FROM_SWAP, SAVE_TO_SWAP }
@@ -338,6 +992,9 @@ public class SisOp {
         public SisOp_ProcessManager.PCB pcb;
         public int page;
         public int frame;
+        public int posicao;     // endereço (em páginas) no disco, usado pelo escalonador
+        public volatile boolean antecipada;   // leitura antecipada: ninguém espera por ela (ainda)
+        public boolean concluido;   // o frame já não depende do pedido (sob o schedulerLock)
         public DiskRequest(SisOp_ProcessManager.PCB pcb, int page, int frame) {
             this.type = OpType.SAVE_TO_SWAP;
             this.pcb = pcb; this.page = page; this.frame = frame;
@@ -348,107 +1005,740 @@ public class SisOp {
         }
     }
 
-    // Gerenciador de disco: simula swap em thread separada
+    // Escalonamento de disco: escolhe, entre os pedidos pendentes, o próximo a ser atendido
+    public interface DiskScheduler {
+        String getName();
+        // Índice do próximo pedido na fila, dada a posição atual da cabeça
+        int escolhe(List<DiskRequest> fila, int cabeca);
+    }
+
+    // FCFS: atende na ordem de chegada
+    public static class FcfsScheduler implements DiskScheduler {
+        public String getName() { return "fcfs"; }
+        public int escolhe(List<DiskRequest> fila, int cabeca) { return 0; }
+    }
+
+    // SSTF: atende o pedido mais próximo da cabeça
+    public static class SstfScheduler implements DiskScheduler {
+        public String getName() { return "sstf"; }
+        public int escolhe(List<DiskRequest> fila, int cabeca) {
+            int melhor = 0;
+            for (int i = 1; i < fila.size(); i++) {
+                if (Math.abs(fila.get(i).posicao - cabeca) < Math.abs(fila.get(melhor).posicao - cabeca)) melhor = i;
+            }
+            return melhor;
+        }
+    }
+
+    // C-LOOK: varre em ordem crescente de endereço e volta ao menor pedido ao chegar no fim
+    public static class CLookScheduler implements DiskScheduler {
+        public String getName() { return "clook"; }
+        public int escolhe(List<DiskRequest> fila, int cabeca) {
+            int adiante = -1, menor = 0;
+            for (int i = 0; i < fila.size(); i++) {
+                int pos = fila.get(i).posicao;
+                if (pos >= cabeca && (adiante == -1 || pos < fila.get(adiante).posicao)) adiante = i;
+                if (pos < fila.get(menor).posicao) menor = i;
+            }
+            return adiante != -1 ? adiante : menor;
+        }
+    }
+
+    // Cria o escalonador de disco pelo nome (fcfs, sstf, clook)
+    public static DiskScheduler criaEscalonadorDisco(String nome) {
+        switch (nome.toLowerCase()) {
+            case "sstf": return new SstfScheduler();
+            case "clook": return new CLookScheduler();
+            case "fcfs": return new FcfsScheduler();
+            default:
+                System.out.println("Escalonador de disco '" + nome + "' desconhecido. Usando FCFS.");
+                return new FcfsScheduler();
+        }
+    }
+
+    // Gerenciador de disco: simula swap em thread separada.
+    // O disco é visto como uma faixa de endereços: primeiro os slots de swap, depois as imagens
+    // dos programas, em sequência. Pedidos contíguos do mesmo processo e do mesmo tipo são
+    // agrupados numa única transferência (uma só latência de acesso).
     public class DiskManager implements Runnable {
         private SisOp so;
-        private Queue<DiskRequest> diskQueue;
+        private List<DiskRequest> diskQueue;
         private final Object diskLock = new Object();
-        private Map<Integer, Hardware.Word[]> programStore; 
-        private Map<String, Hardware.Word[]> swapStore;      
+        private Map<Integer, long[]> programStore; 
+        private Map<Integer, Integer> programBase;  // endereço no disco da página 0 de cada programa
+        private int proximaBase;
+        private List<DiskRequest> emAndamento = new ArrayList<>();
+        private DiskScheduler escalonador = new FcfsScheduler();
+        private int cabeca = 0;
+        private long transferencias = 0;
+        private long pedidosAgrupados = 0;
+        private long savesCancelados = 0;
+        private long latencia = 200;    // em ticks do relógio, por transferência
+        private boolean ocioso = true;  // disco parado com a fila vazia (não segura o relógio)
         public DiskManager(SisOp so) {
             this.so = so;
-            this.diskQueue = new LinkedList<>();
+            this.diskQueue = new ArrayList<>();
             this.programStore = new HashMap<>();
-            this.swapStore = new HashMap<>();
+            this.programBase = new HashMap<>();
+            this.proximaBase = so.swap.getQtdSlots();
         }
+
+        public void setScheduler(DiskScheduler escalonador) { this.escalonador = escalonador; }
+        public void setLatencia(long ticks) { this.latencia = ticks; }
+        public DiskScheduler getScheduler() { return escalonador; }
+        public long getTransferencias() { return transferencias; }
+        public long getPedidosAgrupados() { return pedidosAgrupados; }
+        public long getSavesCancelados() { return savesCancelados; }
+        public int getTamanhoFila() { synchronized (diskLock) { return diskQueue.size(); } }
+
         // Solicita carregamento de página do disco/swap
         public void requestLoad(SisOp_ProcessManager.PCB pcb, int page, int frame) {
             boolean fromSwap = pcb.getPageTable()[page].onDisk;
-            System.out.println("--- DiskManager: Pedido de LOAD (P" + pcb.getId() + ", Pag " + page + ") para Frame " + frame + " (do " + (fromSwap ? "Swap" : "Programa") + ")");
-            addRequest(new DiskRequest(pcb, page, frame, fromSwap));
+            if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: Pedido de LOAD (P" + pcb.getId() + ", Pag " + page + ") para Frame " + frame + " (do " + (fromSwap ? "Swap" : "Programa") + ")");
+            DiskRequest req = new DiskRequest(pcb, page, frame, fromSwap);
+            if (fromSwap) {
+                req.posicao = pcb.getPageTable()[page].diskAddress;
+            } else {
+                Integer base;
+                synchronized (diskLock) { base = programBase.get(pcb.getProgramId()); }
+                req.posicao = (base != null ? base : 0) + page;
+            }
+            addRequest(req);
+        }
+        // Solicita a carga antecipada de uma página (o processo não está bloqueado esperando por ela)
+        public void requestPrefetch(SisOp_ProcessManager.PCB pcb, int page, int frame) {
+            if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: Pedido de LOAD antecipado (P" + pcb.getId() + ", Pag " + page + ") para Frame " + frame);
+            DiskRequest req = new DiskRequest(pcb, page, frame, pcb.getPageTable()[page].onDisk);
+            req.antecipada = true;
+            if (req.type == DiskRequest.OpType.LOAD_FROM_SWAP) {
+                req.posicao = pcb.getPageTable()[page].diskAddress;
+            } else {
+                Integer base;
+                synchronized (diskLock) { base = programBase.get(pcb.getProgramId()); }
+                req.posicao = (base != null ? base : 0) + page;
+            }
+            addRequest(req);
+        }
+        // O processo passou a esperar por uma carga antecipada (na fila ou em andamento):
+        // ao concluir, ela deve desbloqueá-lo. Retorna false se não há tal pedido.
+        public boolean promoveAntecipacao(SisOp_ProcessManager.PCB pcb, int page) {
+            synchronized (diskLock) {
+                for (List<DiskRequest> lista : List.of(diskQueue, emAndamento)) {
+                    for (DiskRequest r : lista) {
+                        if (r.antecipada && r.pcb == pcb && r.page == page) {
+                            r.antecipada = false;
+                            return true;
+                        }
+                    }
+                }
+            }
+            return false;
         }
         // Solicita salvamento de página no swap
         public void requestSave(SisOp_ProcessManager.PCB pcb, int page, int frame) {
-            System.out.println("--- DiskManager: Pedido de SAVE (P" + pcb.getId() + ", Pag " + page + ") do Frame " + frame + " para o Swap");
-            addRequest(new DiskRequest(pcb, page, frame));
+            if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: Pedido de SAVE (P" + pcb.getId() + ", Pag " + page + ") do Frame " + frame + " para o Swap");
+            DiskRequest req = new DiskRequest(pcb, page, frame);
+            req.posicao = pcb.getPageTable()[page].diskAddress;
+            addRequest(req);
         }
         private void addRequest(DiskRequest req) {
             synchronized(diskLock) {
+                if (ocioso) {
+                    ocioso = false;
+                    so.relogio.ocupa();
+                }
                 diskQueue.add(req);
+                so.trace.registra(Trace.DISCO_PEDIDO, req.pcb.getId(), req.page, req.frame, req.type.ordinal(), diskQueue.size());
                 diskLock.notify();
             }
         }
-        // Armazena programa original para futuras cargas
-        public void saveProgramToStore(int progId, Hardware.Word[] program) {
-            programStore.put(progId, program);
+        // Retira da fila um SAVE ainda não iniciado da página (a página voltou a ser usada).
+        // Retorna o pedido cancelado, ou null se não havia (ou se a gravação já começou).
+        public DiskRequest cancelaSave(SisOp_ProcessManager.PCB pcb, int page) {
+            synchronized (diskLock) {
+                for (int i = 0; i < diskQueue.size(); i++) {
+                    DiskRequest r = diskQueue.get(i);
+                    if (r.type == DiskRequest.OpType.SAVE_TO_SWAP && r.pcb == pcb && r.page == page) {
+                        savesCancelados++;
+                        so.trace.registra(Trace.DISCO_CANCELADO, pcb.getId(), page, r.frame, r.type.ordinal(), diskQueue.size() - 1);
+                        return diskQueue.remove(i);
+                    }
+                }
+            }
+            return null;
         }
-        public void clearSwap(int pcbId) {
-            
+        // O processo está saindo do sistema (sob o schedulerLock): retira da fila os pedidos dele,
+        // e o frame de um SAVE cancelado que outro processo espera é entregue a este na hora.
+        // Retorna os frames do processo com transferência em curso, que continuam reservados
+        // até a conclusão (ela os libera, sem copiar nada para o processo que saiu).
+        public List<Integer> cancelaPedidos(SisOp_ProcessManager.PCB pcb) {
+            List<DiskRequest> cancelados = new ArrayList<>();
+            List<Integer> emCurso = new ArrayList<>();
+            synchronized (diskLock) {
+                for (int i = diskQueue.size() - 1; i >= 0; i--) {
+                    DiskRequest r = diskQueue.get(i);
+                    if (r.pcb != pcb) continue;
+                    cancelados.add(diskQueue.remove(i));
+                    so.trace.registra(Trace.DISCO_CANCELADO, pcb.getId(), r.page, r.frame, r.type.ordinal(), diskQueue.size());
+                }
+                for (DiskRequest r : emAndamento) {
+                    if (r.pcb == pcb && !r.concluido) emCurso.add(r.frame);
+                }
+            }
+            for (DiskRequest r : cancelados) {
+                if (r.type != DiskRequest.OpType.SAVE_TO_SWAP) continue;
+                SisOp_GM.FrameInfo info = so.gm.getFrameInfo(r.frame);
+                if (info != null && info.pcb == pcb && info.waiter != null && info.waiter != pcb
+                        && info.waiter.getState() != SisOp_ProcessManager.ProcessState.TERMINATED) {
+                    entregaFrame(r.frame, info.waiter, info.waiterPage);
+                }
+            }
+            return emCurso;
+        }
+        // Entrega o frame ao processo que esperava por ele e pede a carga da página que faltou
+        private void entregaFrame(int frame, SisOp_ProcessManager.PCB waiter, int page) {
+            if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: Frame " + frame + " está livre. Acordando P" + waiter.getId() + " para carregar Pag " + page);
+            so.gm.occupyFrame(frame, waiter, page);
+            requestLoad(waiter, page, frame);
+        }
+        // Armazena a imagem (empacotada) do programa original para futuras cargas
+        public void saveProgramToStore(int progId, long[] program) {
+            synchronized (diskLock) {
+                programStore.put(progId, program);
+                programBase.put(progId, proximaBase);
+                proximaBase += (program.length + so.TAM_PAG - 1) / so.TAM_PAG;
+            }
+        }
+        // Descarta a imagem do programa do processo que saiu do sistema. Os pedidos dele já foram
+        // cancelados; uma carga em curso é descartada na conclusão, sem ler a imagem.
+        public void descartaPrograma(SisOp_ProcessManager.PCB pcb) {
+            synchronized (diskLock) {
+                programStore.remove(pcb.getProgramId());
+                programBase.remove(pcb.getProgramId());
+            }
+        }
+        // Devolve ao dispositivo de swap os slots ocupados pelas páginas do processo
+        public void clearSwap(SisOp_ProcessManager.PCB pcb) {
+            synchronized (so.swap) {
+                for (Hardware.PageTableEntry entry : pcb.getPageTable()) {
+                    if (entry.diskAddress >= 0) {
+                        so.swap.libera(entry.diskAddress);
+                        entry.diskAddress = -1;
+                        entry.onDisk = false;
+                    }
+                }
+            }
+        }
+        // Retira da fila o próximo pedido (segundo o escalonador) e os pedidos contíguos a ele
+        private List<DiskRequest> proximoLote() {
+            List<DiskRequest> lote = new ArrayList<>();
+            DiskRequest primeiro = diskQueue.remove(escalonador.escolhe(diskQueue, cabeca));
+            lote.add(primeiro);
+            int ini = primeiro.posicao, fim = primeiro.posicao;
+            boolean achou = true;
+            while (achou) {
+                achou = false;
+                for (int i = 0; i < diskQueue.size(); i++) {
+                    DiskRequest r = diskQueue.get(i);
+                    if (r.type != primeiro.type || r.pcb != primeiro.pcb) continue;
+                    if (r.posicao == fim + 1 || r.posicao == ini - 1) {
+                        if (r.posicao == fim + 1) fim++; else ini--;
+                        lote.add(diskQueue.remove(i));
+                        achou = true;
+                        break;
+                    }
+                }
+            }
+            cabeca = fim;
+            transferencias++;
+            pedidosAgrupados += lote.size() - 1;
+            return lote;
         }
         // Thread que processa operações de disco (swap)
         @Override
         public void run() {
             while (true) {
-                DiskRequest req;
+                List<DiskRequest> lote = null;
                 synchronized (diskLock) {
-                    while (diskQueue.isEmpty()) {
+                    while (diskQueue.isEmpty() && ocioso) {
                         try { diskLock.wait(); } catch (InterruptedException e) {}
                     }
-                    req = diskQueue.poll();
-                }
-                try { Thread.sleep(200); } catch (InterruptedException e) {} 
-                switch (req.type) {
-                    case LOAD_FROM_PROG:
-                        System.out.println("--- DiskManager: LOAD (Programa) P" + req.pcb.getId() + ", Pag " + req.page + " -> Frame " + req.frame + " CONCLUÍDO.");
-                        Hardware.Word[] prog = programStore.get(req.pcb.getProgramId());
-                        so.utils.loadPage(prog, req.frame, req.page);
-                        req.pcb.getPageTable()[req.page].valid = true;
-                        req.pcb.getPageTable()[req.page].frameNumber = req.frame;
-                        so.processManager.unblockProcess(req.pcb, "Fim_Page_Fault");
-                        break;
-                    case LOAD_FROM_SWAP:
-                        System.out.println("--- DiskManager: LOAD (Swap) P" + req.pcb.getId() + ", Pag " + req.page + " -> Frame " + req.frame + " CONCLUÍDO.");
-                        String swapKey = req.pcb.getId() + "_" + req.page;
-                        Hardware.Word[] pageData = swapStore.get(swapKey);
-                        if (pageData != null) {
-                            so.utils.loadPage(pageData, req.frame, 0); 
-                            swapStore.remove(swapKey); 
+                    // a fila também se esvazia por cancelamentos depois de o disco sair do repouso
+                    if (diskQueue.isEmpty()) {
+                        ocioso = true;
+                    } else {
+                        lote = proximoLote();
+                        emAndamento = lote;
+                    }
+                }
+                if (lote == null) {
+                    so.relogio.libera();
+                    continue;
+                }
+                if (lote.size() > 1) {
+                    if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: " + lote.size() + " pedidos contíguos de P" + lote.get(0).pcb.getId() + " atendidos numa única transferência.");
+                }
+                so.relogio.espera(latencia);
+                for (DiskRequest req : lote) {
+                    executa(req);
+                    if (so.trace.isAtivo()) {
+                        synchronized (diskLock) {
+                            so.trace.registra(Trace.DISCO_FIM, req.pcb.getId(), req.page, req.frame, req.type.ordinal(), diskQueue.size());
                         }
-                        req.pcb.getPageTable()[req.page].valid = true;
-                        req.pcb.getPageTable()[req.page].frameNumber = req.frame;
-                        req.pcb.getPageTable()[req.page].onDisk = false;
-                        so.processManager.unblockProcess(req.pcb, "Fim_Page_Fault");
-                        break;
-                    case SAVE_TO_SWAP:
-                        System.out.println("--- DiskManager: SAVE (Swap) P" + req.pcb.getId() + ", Pag " + req.page + " <- Frame " + req.frame + " CONCLUÍDO.");
-                        Hardware.Word[] dataToSave = so.utils.savePage(req.frame);
-                        String key = req.pcb.getId() + "_" + req.page;
-                        swapStore.put(key, dataToSave);
-                        
+                    }
+                }
+                synchronized (diskLock) { emAndamento = new ArrayList<>(); }
+                so.vmManager.acordaEsperandoFrame();
+            }
+        }
+        // Uma carga (antecipada ou não) perde o sentido se o processo terminou ou o frame mudou
+        // de dono (foi liberado e reaproveitado) enquanto o pedido esperava na fila
+        private boolean aindaEsperado(DiskRequest req) {
+            synchronized (so.processManager.getSchedulerLock()) {
+                SisOp_GM.FrameInfo info = so.gm.getFrameInfo(req.frame);
+                boolean dono = info != null && info.pcb == req.pcb && info.pageNumber == req.page;
+                if (dono && req.pcb.getState() != SisOp_ProcessManager.ProcessState.TERMINATED) return true;
+                // o processo saiu com a carga em curso: o frame ficou reservado até aqui
+                if (dono) so.gm.freeFrame(req.frame);
+                req.concluido = true;
+                return false;
+            }
+        }
+        // Valida a página recém-carregada e, se alguém espera por ela, desbloqueia o processo.
+        // Feito sob o schedulerLock para não competir com a promoção de uma carga antecipada.
+        private void concluiCarga(DiskRequest req) {
+            synchronized (so.processManager.getSchedulerLock()) {
+                req.concluido = true;
+                if (req.pcb.getState() == SisOp_ProcessManager.ProcessState.TERMINATED) {
+                    // saiu durante a cópia: o frame reservado volta aos livres
+                    so.gm.freeFrame(req.frame);
+                    return;
+                }
+                Hardware.PageTableEntry entry = req.pcb.getPageTable()[req.page];
+                entry.valid = true;
+                entry.frameNumber = req.frame;
+                entry.referenced = true;
+                entry.modified = false;
+                so.hw.invalidateTLB(req.pcb.getId(), req.page);
+                if (!req.antecipada) {
+                    so.processManager.unblockProcess(req.pcb, "Fim_Page_Fault");
+                }
+            }
+        }
+        // Conclui um pedido: copia os dados e acorda quem esperava por eles
+        private void executa(DiskRequest req) {
+            switch (req.type) {
+                case LOAD_FROM_PROG:
+                    if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: LOAD (Programa) P" + req.pcb.getId() + ", Pag " + req.page + " -> Frame " + req.frame + " CONCLUÍDO.");
+                    long[] prog;
+                    synchronized (diskLock) { prog = programStore.get(req.pcb.getProgramId()); }
+                    if (!aindaEsperado(req)) break;
+                    so.utils.loadPage(prog, req.frame, req.page);
+                    concluiCarga(req);
+                    break;
+                case LOAD_FROM_SWAP:
+                    if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: LOAD (Swap) P" + req.pcb.getId() + ", Pag " + req.page + " -> Frame " + req.frame + " CONCLUÍDO.");
+                    // a cópia fica no swap: se a página não for alterada, poderá ser
+                    // descartada na próxima vitimização sem nova gravação
+                    if (!aindaEsperado(req)) break;
+                    so.swap.le(req.pcb.getPageTable()[req.page].diskAddress, req.frame);
+                    concluiCarga(req);
+                    break;
+                case SAVE_TO_SWAP:
+                    if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: SAVE (Swap) P" + req.pcb.getId() + ", Pag " + req.page + " <- Frame " + req.frame + " CONCLUÍDO.");
+                    // se o processo terminou enquanto o pedido esperava, o slot já foi devolvido
+                    synchronized (so.swap) {
+                        so.swap.grava(req.pcb.getPageTable()[req.page].diskAddress, req.frame);
+                    }
+                    
+                    // o frame só é liberado (ou entregue a quem o espera) se ainda guarda a página
+                    // gravada; quem esperava e já terminou não o recebe
+                    synchronized (so.processManager.getSchedulerLock()) {
+                        req.concluido = true;
                         SisOp_GM.FrameInfo info = so.gm.getFrameInfo(req.frame);
-                        if (info != null && info.waiter != null) {
-                            SisOp_ProcessManager.PCB waiterPcb = info.waiter;
-                            
-                            int waiterPage = info.waiterPage;
-                            
-                            System.out.println("--- DiskManager: Frame " + req.frame + " está livre. Acordando P" + waiterPcb.getId() + " para carregar Pag " + waiterPage);
-                            so.gm.occupyFrame(req.frame, waiterPcb, waiterPage);
-                            requestLoad(waiterPcb, waiterPage, req.frame);
-                        } else {
-                            so.gm.freeFrame(req.frame);
+                        if (info != null && info.pcb == req.pcb && info.pageNumber == req.page) {
+                            if (info.waiter != null && info.waiter.getState() != SisOp_ProcessManager.ProcessState.TERMINATED) {
+                                entregaFrame(req.frame, info.waiter, info.waiterPage);
+                            } else {
+                                so.gm.freeFrame(req.frame);
+                            }
                         }
-                        break;
-                }
+                    }
+                    break;
             }
         }
     }
     
+    // Dispositivo de swap: arquivo mapeado em memória dividido em slots do tamanho de uma página.
+    // Cada página despejada suja recebe um slot (guardado em diskAddress) que só é devolvido
+    // quando o processo termina. As transferências copiam direto entre a memória física e o
+    // buffer mapeado, sem arrays intermediários no heap.
+    public class SwapDevice {
+        private final int tamPag;
+        private final int qtdSlots;
+        private LongBuffer area;
+        private final int[] pilhaLivres;     // slots livres (pilha)
+        private final boolean[] ocupado;
+        private int topo;
+
+        public SwapDevice(String arquivo, int qtdSlots, int tamPag) {
+            this.tamPag = tamPag;
+            this.qtdSlots = qtdSlots;
+            this.pilhaLivres = new int[qtdSlots];
+            this.ocupado = new boolean[qtdSlots];
+            for (int i = 0; i < qtdSlots; i++) pilhaLivres[i] = qtdSlots - 1 - i;
+            this.topo = qtdSlots;
+            long bytes = (long) qtdSlots * tamPag * Long.BYTES;
+            try (RandomAccessFile raf = new RandomAccessFile(arquivo, "rw");
+                 FileChannel canal = raf.getChannel()) {
+                raf.setLength(bytes);
+                this.area = canal.map(FileChannel.MapMode.READ_WRITE, 0, bytes).asLongBuffer();
+            } catch (IOException e) {
+                System.out.println("ERRO: Não foi possível mapear o arquivo de swap " + arquivo + " (" + e.getMessage() + "). Usando swap em memória.");
+                this.area = LongBuffer.allocate(qtdSlots * tamPag);
+            }
+        }
+
+        // Reserva um slot livre; -1 se o swap estiver cheio
+        public synchronized int aloca() {
+            if (topo == 0) return -1;
+            int slot = pilhaLivres[--topo];
+            ocupado[slot] = true;
+            return slot;
+        }
+
+        // Devolve um slot à pilha de livres
+        public synchronized void libera(int slot) {
+            if (slot < 0 || slot >= qtdSlots || !ocupado[slot]) return;
+            ocupado[slot] = false;
+            pilhaLivres[topo++] = slot;
+        }
+
+        // Copia o frame para o slot
+        public synchronized void grava(int slot, int frame) {
+            if (slot < 0 || slot >= qtdSlots || !ocupado[slot]) return;
+            hw.mem.copyTo(frame * tamPag, area, slot * tamPag, tamPag);
+        }
+
+        // Copia o slot para o frame
+        public synchronized void le(int slot, int frame) {
+            if (slot < 0 || slot >= qtdSlots || !ocupado[slot]) return;
+            hw.mem.copyFrom(area, slot * tamPag, frame * tamPag, tamPag);
+        }
+
+        public synchronized int getSlotsLivres() { return topo; }
+        public int getQtdSlots() { return qtdSlots; }
+    }
+
+    // Contadores de desempenho do sistema. Os eventos frequentes (instruções, faltas, trocas de
+    // contexto) somam em LongAdder, que espalha as atualizações concorrentes dos núcleos e do
+    // disco por células separadas; a soma só é feita na leitura (comando stats ou JMX).
+    public class Estatisticas implements EstatisticasMBean {
+        private final LongAdder instrucoes = new LongAdder();
+        private final LongAdder quanta = new LongAdder();
+        private final LongAdder trocasContexto = new LongAdder();
+        private final LongAdder faltasMenores = new LongAdder();
+        private final LongAdder faltasSwap = new LongAdder();
+        private final LongAdder faltasPrograma = new LongAdder();
+        private final LongAdder tempoOcupado = new LongAdder();
+        private final LongAdder terminados = new LongAdder();
+        private final LongAdder somaRetorno = new LongAdder();
+        private final LongAdder somaResposta = new LongAdder();
+        private final LongAdder somaEspera = new LongAdder();
+        private final LongAdder comPrazo = new LongAdder();
+        private final LongAdder prazosPerdidos = new LongAdder();
+        private final Amostras respostas = new Amostras();
+        private final Amostras retornos = new Amostras();
+        private boolean jmx = false;
+        private boolean jmxProcessos = false;   // um MBean por processo (registrado sob o schedulerLock)
+
+        public void registraInstrucoes(long n) { instrucoes.add(n); }
+        public void registraQuantum() { quanta.increment(); }
+        public void registraDespacho() { trocasContexto.increment(); }
+        public void registraOcupacao(long ticks) { tempoOcupado.add(ticks); }
+        public void registraFalta(boolean menor, boolean doSwap) {
+            if (menor) faltasMenores.increment();
+            else if (doSwap) faltasSwap.increment();
+            else faltasPrograma.increment();
+        }
+        public void registraTermino(SisOp_ProcessManager.PCB pcb) {
+            terminados.increment();
+            somaRetorno.add(pcb.getRetorno());
+            if (pcb.getResposta() >= 0) somaResposta.add(pcb.getResposta());
+            somaEspera.add(pcb.getTempo(SisOp_ProcessManager.ProcessState.READY, 0));
+            retornos.adiciona(pcb.getRetorno());
+            if (pcb.getResposta() >= 0) respostas.adiciona(pcb.getResposta());
+            if (pcb.temPrazo()) {
+                comPrazo.increment();
+                if (pcb.perdeuPrazo(0)) prazosPerdidos.increment();
+            }
+            processoRemovido(pcb);
+        }
+
+        @Override public long getInstrucoes() { return instrucoes.sum(); }
+        @Override public long getQuanta() { return quanta.sum(); }
+        @Override public long getTrocasContexto() { return trocasContexto.sum(); }
+        @Override public long getFaltasMenores() { return faltasMenores.sum(); }
+        @Override public long getFaltasSwap() { return faltasSwap.sum(); }
+        @Override public long getFaltasPrograma() { return faltasPrograma.sum(); }
+        @Override public long getProcessosTerminados() { return terminados.sum(); }
+        @Override public int getProcessosAtivos() { return processManager.getQtdProcessos(); }
+        @Override public int getProcessosProntos() { return processManager.getQtdPorEstado(SisOp_ProcessManager.ProcessState.READY); }
+        @Override public int getProcessosExecutando() { return processManager.getQtdPorEstado(SisOp_ProcessManager.ProcessState.RUNNING); }
+        @Override public int getProcessosBloqueados() { return processManager.getQtdPorEstado(SisOp_ProcessManager.ProcessState.BLOCKED); }
+        @Override public int getProcessosSuspensos() { return processManager.getQtdPorEstado(SisOp_ProcessManager.ProcessState.SUSPENDED); }
+        @Override public long getInstante() { return relogio.agora(); }
+        // Faltas (que exigiram leitura do disco ou não) por mil instruções
+        @Override public double getTaxaFaltas() {
+            long n = getInstrucoes();
+            return n == 0 ? 0 : 1000.0 * (getFaltasMenores() + getFaltasSwap() + getFaltasPrograma()) / n;
+        }
+        // Fração do tempo decorrido em que os núcleos estiveram executando processos
+        @Override public double getUtilizacaoCpu() {
+            long decorrido = relogio.agora() * hw.cpus.length;
+            long ocupado = tempoOcupado.sum() + processManager.tempoExecutandoAgora();
+            return decorrido == 0 ? 0 : Math.min(100.0, 100.0 * ocupado / decorrido);
+        }
+        @Override public int getFilaDisco() { return diskManager.getTamanhoFila(); }
+        @Override public int getSlotsSwapUsados() { return swap.getQtdSlots() - swap.getSlotsLivres(); }
+        @Override public double getOcupacaoSwap() { return 100.0 * getSlotsSwapUsados() / swap.getQtdSlots(); }
+        @Override public double getRetornoMedio() { long n = terminados.sum(); return n == 0 ? 0 : (double) somaRetorno.sum() / n; }
+        @Override public double getRespostaMedia() { long n = terminados.sum(); return n == 0 ? 0 : (double) somaResposta.sum() / n; }
+        @Override public double getEsperaMedia() { long n = terminados.sum(); return n == 0 ? 0 : (double) somaEspera.sum() / n; }
+        @Override public long getProcessosComPrazo() { return comPrazo.sum(); }
+        @Override public long getPrazosPerdidos() { return prazosPerdidos.sum(); }
+        @Override public long getRejeitadosAdmissao() { return processManager.getRejeitados(); }
+        @Override public long getRespostaP50() { return respostas.percentil(50); }
+        @Override public long getRespostaP99() { return respostas.percentil(99); }
+        @Override public long getRetornoP50() { return retornos.percentil(50); }
+        @Override public long getRetornoP99() { return retornos.percentil(99); }
+
+        // Publica os contadores do sistema no servidor de MBeans da plataforma (jconsole,
+        // VisualVM) e, se 'processos', também os de cada processo criado daí em diante
+        public void setJmx(boolean ligado, boolean processos) {
+            if (!ligado || jmx) return;
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(this, EstatisticasMBean.class), new ObjectName("SisOp:type=Estatisticas"));
+                jmx = true;
+                jmxProcessos = processos;
+            } catch (Exception e) {
+                if (SisOp_Diag.erro(SisOp_Diag.JMX)) System.out.println("JMX indisponível: " + e);
+            }
+        }
+        public void processoCriado(SisOp_ProcessManager.PCB pcb) {
+            if (!jmxProcessos) return;
+            try {
+                ManagementFactory.getPlatformMBeanServer().registerMBean(
+                    new StandardMBean(new ProcessoJmx(pcb), ProcessoMBean.class), nomeJmx(pcb));
+            } catch (Exception e) {
+                if (SisOp_Diag.erro(SisOp_Diag.JMX)) System.out.println("JMX: falha ao registrar o processo " + pcb.getId() + ": " + e);
+            }
+        }
+        public void processoRemovido(SisOp_ProcessManager.PCB pcb) {
+            if (!jmxProcessos) return;
+            try {
+                ManagementFactory.getPlatformMBeanServer().unregisterMBean(nomeJmx(pcb));
+            } catch (Exception e) {
+                if (SisOp_Diag.erro(SisOp_Diag.JMX)) System.out.println("JMX: falha ao remover o processo " + pcb.getId() + ": " + e);
+            }
+        }
+        private ObjectName nomeJmx(SisOp_ProcessManager.PCB pcb) throws Exception {
+            return new ObjectName("SisOp:type=Processo,id=" + pcb.getId());
+        }
+    }
+
+    // Atributos do sistema publicados via JMX
+    public interface EstatisticasMBean {
+        long getInstrucoes();
+        long getQuanta();
+        long getTrocasContexto();
+        long getFaltasMenores();
+        long getFaltasSwap();
+        long getFaltasPrograma();
+        long getProcessosTerminados();
+        int getProcessosAtivos();
+        int getProcessosProntos();
+        int getProcessosExecutando();
+        int getProcessosBloqueados();
+        int getProcessosSuspensos();
+        long getInstante();
+        double getTaxaFaltas();
+        double getUtilizacaoCpu();
+        int getFilaDisco();
+        int getSlotsSwapUsados();
+        double getOcupacaoSwap();
+        double getRetornoMedio();
+        double getRespostaMedia();
+        double getEsperaMedia();
+        long getProcessosComPrazo();
+        long getPrazosPerdidos();
+        long getRejeitadosAdmissao();
+        long getRespostaP50();
+        long getRespostaP99();
+        long getRetornoP50();
+        long getRetornoP99();
+    }
+
+    // Amostras de uma latência (em ticks) dos processos terminados, para os percentis.
+    // Guarda todos os valores: são poucos perto da memória (um long por processo).
+    public static class Amostras {
+        private long[] valores = new long[64];
+        private int n = 0;
+        public synchronized void adiciona(long v) {
+            if (n == valores.length) valores = Arrays.copyOf(valores, 2 * n);
+            valores[n++] = v;
+        }
+        public synchronized int tamanho() { return n; }
+        // Percentil p (0 a 100) pelo posto mais próximo; -1 se não há amostras
+        public synchronized long percentil(double p) {
+            if (n == 0) return -1;
+            long[] ordenados = Arrays.copyOf(valores, n);
+            Arrays.sort(ordenados);
+            int posto = (int) Math.ceil(p / 100.0 * n);
+            return ordenados[Math.max(0, Math.min(n - 1, posto - 1))];
+        }
+    }
+
+    // Atributos de um processo publicados via JMX
+    public interface ProcessoMBean {
+        String getPrograma();
+        String getEstado();
+        long getInstrucoes();
+        long getQuanta();
+        long getDespachos();
+        long getFaltasMenores();
+        long getFaltasSwap();
+        long getFaltasPrograma();
+        long getTempoPronto();
+        long getTempoExecutando();
+        long getTempoBloqueado();
+        long getResposta();
+    }
+
+    // Visão JMX de um PCB (leituras sem trava; os valores são apenas indicativos)
+    public class ProcessoJmx implements ProcessoMBean {
+        private final SisOp_ProcessManager.PCB pcb;
+        public ProcessoJmx(SisOp_ProcessManager.PCB pcb) { this.pcb = pcb; }
+        @Override public String getPrograma() { return pcb.getProgramName(); }
+        @Override public String getEstado() { return pcb.getState().name(); }
+        @Override public long getInstrucoes() { return pcb.getInstrucoes(); }
+        @Override public long getQuanta() { return pcb.getQuanta(); }
+        @Override public long getDespachos() { return pcb.getDespachos(); }
+        @Override public long getFaltasMenores() { return pcb.getFaltasMenores(); }
+        @Override public long getFaltasSwap() { return pcb.getFaltasSwap(); }
+        @Override public long getFaltasPrograma() { return pcb.getFaltasPrograma(); }
+        @Override public long getTempoPronto() { return pcb.getTempo(SisOp_ProcessManager.ProcessState.READY, relogio.agora()); }
+        @Override public long getTempoExecutando() { return pcb.getTempo(SisOp_ProcessManager.ProcessState.RUNNING, relogio.agora()); }
+        @Override public long getTempoBloqueado() { return pcb.getTempo(SisOp_ProcessManager.ProcessState.BLOCKED, relogio.agora()); }
+        @Override public long getResposta() { return pcb.getResposta(); }
+    }
+
+    // Rastro binário de eventos (-Dtrace=arquivo). Cada evento é um registro de largura fixa
+    // (TAM_REGISTRO bytes): tipo, processo, página, frame, dois campos livres e os instantes
+    // virtual (ticks do relógio) e real (nanossegundos desde a abertura). Os registros vão para
+    // um buffer direto e são gravados em blocos; desligado, cada ponto de rastro custa um teste.
+    // O TraceAnalyzer lê o arquivo depois da execução.
+    public class Trace {
+        public static final int CRIACAO = 1;        // info: estado inicial
+        public static final int TRANSICAO = 2;      // info: estado novo; extra: núcleo (ou -1)
+        public static final int FALTA = 3;          // extra: núcleo
+        public static final int VITIMA = 4;         // processo e página despejados do frame
+        public static final int DISCO_PEDIDO = 5;   // info: tipo do pedido; extra: fila após o pedido
+        public static final int DISCO_FIM = 6;      // info: tipo do pedido; extra: fila restante
+        public static final int DISCO_CANCELADO = 7;
+        public static final int SYSCALL = 8;        // info: operação (r8); extra: núcleo
+        public static final int INTERRUPCAO = 9;    // info: ordinal da interrupção; extra: núcleo
+        public static final int TAM_REGISTRO = 40;
+        public static final long MAGICO = 0x534f545241434531L;   // "SOTRACE1"
+
+        private volatile boolean ativo = false;
+        private FileChannel canal;
+        private ByteBuffer buffer;
+        private long inicio;
+        private long eventos = 0;
+
+        // Abre o arquivo do rastro e grava o cabeçalho (mágico e tamanho do registro)
+        public synchronized void abre(String arquivo) {
+            try {
+                canal = FileChannel.open(Paths.get(arquivo), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+                buffer = ByteBuffer.allocateDirect(TAM_REGISTRO * 1024);
+                buffer.putLong(MAGICO).putInt(TAM_REGISTRO).putInt(0);
+                inicio = System.nanoTime();
+                ativo = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(this::fecha));
+                System.out.println("Rastro binário de eventos em: " + arquivo);
+            } catch (IOException e) {
+                System.out.println("Erro ao abrir o rastro " + arquivo + ": " + e.getMessage());
+            }
+        }
+        public boolean isAtivo() { return ativo; }
+        public synchronized long getEventos() { return eventos; }
+
+        // Registra um evento
+        public void registra(int tipo, int pid, int pagina, int frame, int info, int extra) {
+            if (!ativo) return;
+            long virtual = relogio.agora();
+            long real = System.nanoTime();
+            synchronized (this) {
+                if (!ativo) return;
+                if (buffer.remaining() < TAM_REGISTRO) descarrega();
+                buffer.putInt(tipo).putInt(pid).putInt(pagina).putInt(frame).putInt(info).putInt(extra)
+                      .putLong(virtual).putLong(real - inicio);
+                eventos++;
+            }
+        }
+
+        private void descarrega() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) canal.write(buffer);
+            } catch (IOException e) {
+                System.out.println("Erro ao gravar o rastro: " + e.getMessage());
+                ativo = false;
+            }
+            buffer.clear();
+        }
+
+        // Grava o que falta e fecha o arquivo
+        public synchronized void fecha() {
+            if (!ativo) return;
+            descarrega();
+            ativo = false;
+            try { canal.close(); } catch (IOException e) {}
+        }
+    }
+
     // Logger: registra transições de estado dos processos
-    public class Logger {
+    public class Logger implements Runnable {
         private PrintWriter logFile;
         private String logFileName;
         private String logFormat;
+        // Anel de registros pré-alocados: quem registra só copia campos para a próxima posição
+        // livre; a formatação e a escrita ficam com a thread gravadora, em lotes.
+        private final Registro[] anel;
+        private long cabeca = 0;        // próxima posição a preencher
+        private long cauda = 0;         // próxima posição a gravar
+        private boolean fechando = false;
+        private volatile boolean ativo = true;
+        private Thread gravadora;
+
+        // Registro de uma transição; a tabela de páginas é copiada no momento do registro
+        private class Registro {
+            int id;
+            String progName, reason, initialState, nextState;
+            int[] tabela = new int[16]; // por página: valor << 2 | tipo (0 = fora, 1 = mp, 2 = ms)
+            int paginas;
+        }
+
         public Logger() {
+            this(Integer.getInteger("log.buffer", 1024));
+        }
+
+        public Logger(int capacidade) {
+            this.anel = new Registro[Math.max(capacidade, 1)];
+            for (int i = 0; i < anel.length; i++) anel[i] = new Registro();
             try {
                 String diretorio = "logs";
                 File pasta = new File(diretorio);
@@ -465,49 +1755,112 @@ public class SisOp {
                 }
                 String nomeArquivo = "log_" + new DecimalFormat("000").format(proximoNumero) + ".txt";
                 File arquivoLog = new File(pasta, nomeArquivo);
-                this.logFile = new PrintWriter(new FileWriter(arquivoLog), true);
+                this.logFile = new PrintWriter(new BufferedWriter(new FileWriter(arquivoLog)), false);
                 this.logFileName = nomeArquivo;
                 this.logFormat = "%-5s %-15s %-20s %-12s %-12s %s";
                 this.logFile.println(String.format(this.logFormat, 
                     "ID", "NOME_PROG", "MOTIVO", "ESTADO_ANT", "ESTADO_NOVO", "TABELA_PAGINAS"
                 ));
+                this.logFile.flush();
                 System.out.println("Sistema de Log iniciado. Gravando em: " + nomeArquivo);
+                gravadora = new Thread(this, "Logger");
+                gravadora.setDaemon(true);
+                gravadora.start();
+                Runtime.getRuntime().addShutdownHook(new Thread(this::drena));
             } catch (IOException e) {
                 System.out.println("ERRO CRÍTICO: Não foi possível iniciar o Logger.");
                 e.printStackTrace();
             }
         }
-        // Formata tabela de páginas para o log
-        private String formatPageTable(Hardware.PageTableEntry[] table) {
+        // Formata tabela de páginas (copiada no registro) para o log
+        private String formatPageTable(Registro r) {
             StringBuilder sb = new StringBuilder("{ ");
-            for (int i = 0; i < table.length; i++) {
-                Hardware.PageTableEntry entry = table[i];
-                if (entry.valid) {
-                    sb.append(String.format("[%d,%d,mp]", i, entry.frameNumber));
-                } else if (entry.onDisk) {
-                    sb.append(String.format("[%d,%d,ms]", i, entry.diskAddress));
+            for (int i = 0; i < r.paginas; i++) {
+                int tipo = r.tabela[i] & 3;
+                int valor = r.tabela[i] >> 2;
+                if (tipo == 1) {
+                    sb.append(String.format("[%d,%d,mp]", i, valor));
+                } else if (tipo == 2) {
+                    sb.append(String.format("[%d,%d,ms]", i, valor));
                 } else {
                     sb.append(String.format("[%d,_,_]", i));
                 }
-                if (i < table.length - 1) {
+                if (i < r.paginas - 1) {
                     sb.append(", ");
                 }
             }
             sb.append(" }");
             return sb.toString();
         }
-        // Registra transição de estado no arquivo de log
+        // Registra transição de estado no arquivo de log (só copia para o anel; se o anel
+        // estiver cheio, espera a thread gravadora abrir espaço)
         public void log(int id, String progName, String reason, String initialState, String nextState, Hardware.PageTableEntry[] pageTable) {
+            if (this.logFile == null || !ativo) return;
+            synchronized (this) {
+                if (fechando) return;
+                while (cabeca - cauda == anel.length) {
+                    try { wait(); } catch (InterruptedException e) { return; }
+                }
+                Registro r = anel[(int) (cabeca % anel.length)];
+                r.id = id;
+                r.progName = progName;
+                r.reason = reason;
+                r.initialState = initialState;
+                r.nextState = nextState;
+                if (r.tabela.length < pageTable.length) r.tabela = new int[pageTable.length];
+                for (int i = 0; i < pageTable.length; i++) {
+                    Hardware.PageTableEntry entry = pageTable[i];
+                    if (entry.valid) r.tabela[i] = entry.frameNumber << 2 | 1;
+                    else if (entry.onDisk) r.tabela[i] = entry.diskAddress << 2 | 2;
+                    else r.tabela[i] = 0;
+                }
+                r.paginas = pageTable.length;
+                if (cabeca++ == cauda) notifyAll();
+            }
+        }
+        // Thread gravadora: formata os registros pendentes fora da trava e grava o lote de uma vez
+        @Override
+        public void run() {
+            while (true) {
+                long ini, fim;
+                synchronized (this) {
+                    while (cabeca == cauda && !fechando) {
+                        try { wait(); } catch (InterruptedException e) { return; }
+                    }
+                    if (cabeca == cauda) return;
+                    ini = cauda;
+                    fim = cabeca;
+                }
+                for (long k = ini; k < fim; k++) {
+                    Registro r = anel[(int) (k % anel.length)];
+                    logFile.println(String.format(this.logFormat,
+                        Integer.toString(r.id), r.progName, r.reason, r.initialState, r.nextState, formatPageTable(r)
+                    ));
+                }
+                logFile.flush();
+                synchronized (this) {
+                    cauda = fim;
+                    notifyAll();
+                }
+            }
+        }
+        // Liga ou desliga o registro (medições que não devem encher o disco de log)
+        public void setAtivo(boolean ativo) { this.ativo = ativo; }
+        // Encerra a gravadora depois de gravar tudo o que já foi registrado
+        private void drena() {
             if (this.logFile == null) return;
-            String tableStr = formatPageTable(pageTable);
-            this.logFile.println(String.format(this.logFormat,
-                Integer.toString(id), progName, reason, initialState, nextState, tableStr
-            ));
+            synchronized (this) {
+                if (fechando) return;
+                fechando = true;
+                notifyAll();
+            }
+            try { gravadora.join(); } catch (InterruptedException e) {}
+            this.logFile.close();
         }
         public void close() {
             if (this.logFile != null) {
                 System.out.println("Fechando arquivo de log: " + this.logFileName);
-                this.logFile.close();
+                drena();
             }
         }
     }
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+// Diagnóstico do sistema operacional: níveis de mensagem por subsistema.
+// Cada ponto de mensagem testa o nível antes de montar o texto, p.ex.
+//     if (SisOp_Diag.debug(SisOp_Diag.DISCO)) System.out.println("--- DiskManager: ...");
+// de modo que uma mensagem desligada custa só a leitura de um nível (sem concatenação nem E/S).
+// Os níveis são ajustados na inicialização (-Ddiag=...) ou pelo shell (comandos diag e quiet).
+public final class SisOp_Diag {
+    // Subsistemas
+    public static final int INTERRUPCAO = 0;
+    public static final int SYSCALL = 1;
+    public static final int MEMORIA = 2;
+    public static final int DISCO = 3;
+    public static final int ES = 4;
+    public static final int ESCALONADOR = 5;
+    public static final int CARGA = 6;
+    public static final int JMX = 7;
+    private static final String[] SUBSISTEMAS = { "interrupcao", "syscall", "memoria", "disco", "es", "escalonador", "carga", "jmx" };
+
+    // Níveis (cada um inclui os anteriores)
+    public static final int NADA = 0;
+    public static final int ERRO = 1;
+    public static final int INFO = 2;
+    public static final int DEBUG = 3;
+    private static final String[] NIVEIS = { "nada", "erro", "info", "debug" };
+
+    // Trocado por inteiro a cada alteração, para que as threads vejam os níveis novos
+    private static volatile int[] niveis = preenche(DEBUG);
+
+    private SisOp_Diag() {}
+
+    public static boolean erro(int subsistema) { return niveis[subsistema] >= ERRO; }
+    public static boolean info(int subsistema) { return niveis[subsistema] >= INFO; }
+    public static boolean debug(int subsistema) { return niveis[subsistema] >= DEBUG; }
+
+    private static int[] preenche(int nivel) {
+        int[] v = new int[SUBSISTEMAS.length];
+        Arrays.fill(v, nivel);
+        return v;
+    }
+
+    // Define o nível de um subsistema (ou de todos, com subsistema < 0)
+    public static synchronized void define(int subsistema, int nivel) {
+        int[] v = subsistema < 0 ? preenche(nivel) : niveis.clone();
+        if (subsistema >= 0) v[subsistema] = nivel;
+        niveis = v;
+    }
+
+    // Silencia todas as mensagens de diagnóstico
+    public static void silencia() { define(-1, NADA); }
+
+    // Aplica uma configuração no formato "nivel" ou "subsistema=nivel,...", onde subsistema pode
+    // ser "todos". Retorna false (sem alterar nada) se algum nome for desconhecido.
+    public static synchronized boolean configura(String spec) {
+        int[] v = niveis.clone();
+        for (String parte : spec.split(",")) {
+            String[] kv = parte.trim().split("=");
+            String alvo = kv.length > 1 ? kv[0].trim() : "todos";
+            int nivel = indice(NIVEIS, kv[kv.length - 1].trim());
+            if (nivel < 0) return false;
+            if (alvo.equalsIgnoreCase("todos")) {
+                Arrays.fill(v, nivel);
+            } else {
+                int s = indice(SUBSISTEMAS, alvo);
+                if (s < 0) return false;
+                v[s] = nivel;
+            }
+        }
+        niveis = v;
+        return true;
+    }
+
+    private static int indice(String[] nomes, String nome) {
+        for (int i = 0; i < nomes.length; i++) {
+            if (nomes[i].equalsIgnoreCase(nome)) return i;
+        }
+        return -1;
+    }
+
+    // Descrição dos níveis atuais, para o comando diag
+    public static String descreve() {
+        int[] v = niveis;
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < v.length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(SUBSISTEMAS[i]).append('=').append(NIVEIS[v[i]]);
+        }
+        return sb.toString();
+    }
+
+    public static String nomesSubsistemas() { return String.join("|", SUBSISTEMAS); }
+    public static String nomesNiveis() { return String.join("|", NIVEIS); }
+}
@@ -1,4 +1,11 @@
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
 
 interface GM_Interface {
 }
@@ -9,12 +16,189 @@ public class SisOp_GM implements GM_Interface {
     private int qtdFrames;
     private FrameInfo[] frameMap;
 
+    // Lista (duplamente encadeada, indexada por frame) dos frames livres
+    private int[] livreProx;
+    private int[] livreAnt;
+    private boolean[] livre;
+    private int livreCabeca = -1;
+    private int qtdLivres = 0;
+
+    // Listas de frames residentes de cada processo (mapa reverso processo -> frames)
+    private int[] procProx;
+    private int[] procAnt;
+    private Map<Integer, Integer> cabecaPorProcesso = new HashMap<>();
+
+    private ReplacementPolicy politica;
+    private Hardware.HW hw;     // para invalidar as TLBs ao limpar bits de referência (null sem hardware)
+
+    // Durante a escolha de vítima para uma falta: página da instrução corrente do processo que
+    // faltou (nunca é vitimada) e se as páginas fixadas ficam de fora
+    private SisOp_ProcessManager.PCB faltoso;
+    private int paginaInstrucao = -1;
+    private boolean respeitaFixados = true;
+
+    // Política de substituição de páginas (escolha do frame vítima)
+    public interface ReplacementPolicy {
+        String getName();
+        // Frame passou a conter uma nova página
+        void onLoad(int frame);
+        // Frame foi liberado
+        void onFree(int frame);
+        // Escolhe a vítima entre os frames candidatos; -1 se não houver
+        int selectVictim(SisOp_GM gm);
+        // Chamado periodicamente (a cada interrupção de tempo)
+        default void tick(SisOp_GM gm) {}
+        // Fim da fatia do processo (deixou a CPU ou vai esperar uma falta): os bits de
+        // referência das suas páginas refletem a fatia
+        default void onSliceEnd(SisOp_GM gm, SisOp_ProcessManager.PCB pcb) {}
+    }
+
+    // FIFO: vitima a página carregada há mais tempo
+    public static class FifoPolicy implements ReplacementPolicy {
+        private final LinkedHashSet<Integer> ordem = new LinkedHashSet<>();
+        public String getName() { return "fifo"; }
+        public void onLoad(int frame) { ordem.remove(frame); ordem.add(frame); }
+        public void onFree(int frame) { ordem.remove(frame); }
+        public int selectVictim(SisOp_GM gm) {
+            for (Iterator<Integer> it = ordem.iterator(); it.hasNext(); ) {
+                int f = it.next();
+                if (gm.isCandidate(f)) {
+                    it.remove();
+                    return f;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // CLOCK (segunda chance): o ponteiro limpa o bit de referência e vitima o primeiro sem referência
+    public static class ClockPolicy implements ReplacementPolicy {
+        private int ponteiro = 0;
+        public String getName() { return "clock"; }
+        public void onLoad(int frame) {}
+        public void onFree(int frame) {}
+        public int selectVictim(SisOp_GM gm) {
+            int n = gm.getFrameCount();
+            for (int i = 0; i < 2 * n; i++) {
+                int f = ponteiro;
+                ponteiro = (ponteiro + 1) % n;
+                if (!gm.isCandidate(f)) continue;
+                Hardware.PageTableEntry e = gm.getEntry(f);
+                if (e.referenced) {
+                    gm.limpaReferencia(f);
+                } else {
+                    return f;
+                }
+            }
+            return -1;
+        }
+    }
+
+    // Aging (aproximação de LRU): contador de 8 bits por frame, deslocado a cada tick
+    // O tick só avança a época; cada frame guarda a época da última atualização e é deslocado
+    // ao ser lido. Só o dono liga o bit de referência, então ele é absorvido ao fim da fatia,
+    // percorrendo apenas os frames do processo.
+    public static class AgingPolicy implements ReplacementPolicy {
+        private final int[] idade;
+        private final long[] atualizado;
+        private long epoca = 0;
+        public AgingPolicy(int qtdFrames) {
+            this.idade = new int[qtdFrames];
+            this.atualizado = new long[qtdFrames];
+        }
+        public String getName() { return "aging"; }
+        public void onLoad(int frame) {
+            idade[frame] = 0x80;
+            atualizado[frame] = epoca;
+        }
+        public void onFree(int frame) { idade[frame] = 0; }
+        public void tick(SisOp_GM gm) { epoca++; }
+        // Idade do frame na época atual
+        private int idade(int f) {
+            long d = epoca - atualizado[f];
+            return d >= 8 ? 0 : idade[f] >>> d;
+        }
+        public void onSliceEnd(SisOp_GM gm, SisOp_ProcessManager.PCB pcb) {
+            for (int f = gm.primeiroFrame(pcb); f != -1; f = gm.proximoFrame(f)) {
+                Hardware.PageTableEntry e = gm.getEntry(f);
+                int i = idade(f);
+                if (e.referenced) {
+                    i |= 0x80;
+                    gm.limpaReferencia(f);
+                }
+                idade[f] = i;
+                atualizado[f] = epoca;
+            }
+        }
+        public int selectVictim(SisOp_GM gm) {
+            int vitima = -1;
+            int menor = 0;
+            for (int f = 0; f < idade.length; f++) {
+                if (!gm.isCandidate(f)) continue;
+                int i = idade(f);
+                if (vitima == -1 || i < menor) {
+                    vitima = f;
+                    menor = i;
+                }
+            }
+            return vitima;
+        }
+    }
+
+    // Aleatória: referência para comparação com as demais
+    public static class RandomPolicy implements ReplacementPolicy {
+        private final Random random = new Random();
+        public String getName() { return "random"; }
+        public void onLoad(int frame) {}
+        public void onFree(int frame) {}
+        public int selectVictim(SisOp_GM gm) {
+            int n = gm.getFrameCount();
+            int inicio = random.nextInt(n);
+            for (int i = 0; i < n; i++) {
+                int f = (inicio + i) % n;
+                if (gm.isCandidate(f)) return f;
+            }
+            return -1;
+        }
+    }
+
+    // Índice: vitima o frame candidato de menor número (critério original do simulador).
+    // Ignora o uso das páginas, então concentra as trocas nos primeiros frames mesmo quando
+    // eles guardam páginas em uso; serve de referência para as demais.
+    public static class IndicePolicy implements ReplacementPolicy {
+        public String getName() { return "indice"; }
+        public void onLoad(int frame) {}
+        public void onFree(int frame) {}
+        public int selectVictim(SisOp_GM gm) {
+            for (int f = 0; f < gm.getFrameCount(); f++) {
+                if (gm.isCandidate(f)) return f;
+            }
+            return -1;
+        }
+    }
+
+    // Cria a política pelo nome (indice, fifo, clock, aging, random)
+    public static ReplacementPolicy criaPolitica(String nome, int qtdFrames) {
+        switch (nome.toLowerCase()) {
+            case "clock": return new ClockPolicy();
+            case "aging": return new AgingPolicy(qtdFrames);
+            case "random": return new RandomPolicy();
+            case "fifo": return new FifoPolicy();
+            case "indice": return new IndicePolicy();
+            default:
+                System.out.println("Política de substituição '" + nome + "' desconhecida. Usando CLOCK.");
+                return new ClockPolicy();
+        }
+    }
+
     // Informações sobre o que está ocupando um frame
     public class FrameInfo {
         public SisOp_ProcessManager.PCB pcb;
         public int pageNumber;
         public SisOp_ProcessManager.PCB waiter;
         public int waiterPage = -1; 
+        public boolean fixado = true;   // recém-carregado: protegido até o dono executar uma instrução
+        public boolean emES = false;    // dado de uma E/S em curso: nunca é vitimado
 
         public FrameInfo(SisOp_ProcessManager.PCB pcb, int pageNumber) {
             this.pcb = pcb;
@@ -24,9 +208,55 @@ public class SisOp_GM implements GM_Interface {
     }
 
     public SisOp_GM(int tamMem, int tamPg) {
+        this(tamMem, tamPg, "clock");
+    }
+
+    public SisOp_GM(int tamMem, int tamPg, String politica) {
         this.tamPg = tamPg;
         this.qtdFrames = tamMem / tamPg;
+        this.politica = criaPolitica(politica, qtdFrames);
         this.frameMap = new FrameInfo[qtdFrames];
+        this.livreProx = new int[qtdFrames];
+        this.livreAnt = new int[qtdFrames];
+        this.livre = new boolean[qtdFrames];
+        this.procProx = new int[qtdFrames];
+        this.procAnt = new int[qtdFrames];
+        for (int i = qtdFrames - 1; i >= 0; i--) {
+            insereLivre(i);
+        }
+    }
+
+    private void insereLivre(int f) {
+        livre[f] = true;
+        livreAnt[f] = -1;
+        livreProx[f] = livreCabeca;
+        if (livreCabeca != -1) livreAnt[livreCabeca] = f;
+        livreCabeca = f;
+        qtdLivres++;
+    }
+
+    private void removeLivre(int f) {
+        if (!livre[f]) return;
+        livre[f] = false;
+        if (livreAnt[f] != -1) livreProx[livreAnt[f]] = livreProx[f];
+        else livreCabeca = livreProx[f];
+        if (livreProx[f] != -1) livreAnt[livreProx[f]] = livreAnt[f];
+        qtdLivres--;
+    }
+
+    private void ligaAoProcesso(int f, int pid) {
+        Integer cabeca = cabecaPorProcesso.get(pid);
+        procAnt[f] = -1;
+        procProx[f] = cabeca == null ? -1 : cabeca;
+        if (cabeca != null) procAnt[cabeca] = f;
+        cabecaPorProcesso.put(pid, f);
+    }
+
+    private void desligaDoProcesso(int f, int pid) {
+        if (procAnt[f] != -1) procProx[procAnt[f]] = procProx[f];
+        else if (procProx[f] != -1) cabecaPorProcesso.put(pid, procProx[f]);
+        else cabecaPorProcesso.remove(pid);
+        if (procProx[f] != -1) procAnt[procProx[f]] = procAnt[f];
     }
 
     // Cria tabela de páginas para um programa
@@ -41,35 +271,159 @@ public class SisOp_GM implements GM_Interface {
         return table;
     }
 
-    // Libera todos os frames de um processo
-    public void desaloca(SisOp_ProcessManager.PCB pcb) {
+    // Libera todos os frames de um processo, percorrendo só os que ele ocupa.
+    // Um frame com transferência de disco em curso ('emTransferencia') continua reservado, fora
+    // da lista do processo; a conclusão da transferência o libera ou entrega a quem o espera.
+    public void desaloca(SisOp_ProcessManager.PCB pcb, List<Integer> emTransferencia) {
         if (pcb == null) return;
-        for (int i = 0; i < qtdFrames; i++) {
-            if (frameMap[i] != null && frameMap[i].pcb.getId() == pcb.getId()) {
-                frameMap[i] = null; 
+        Integer cabeca = cabecaPorProcesso.remove(pcb.getId());
+        int f = cabeca == null ? -1 : cabeca;
+        while (f != -1) {
+            int prox = procProx[f];
+            if (emTransferencia.contains(f)) {
+                procProx[f] = procAnt[f] = -1;
+            } else {
+                frameMap[f] = null;
+                insereLivre(f);
+                politica.onFree(f);
             }
+            f = prox;
         }
     }
     
     // Busca um frame livre na memória
     public int findFreeFrame() {
-        for (int i = 0; i < qtdFrames; i++) {
-            if (frameMap[i] == null) {
-                return i;
-            }
+        return livreCabeca; 
+    }
+
+    public int getFreeFrameCount() {
+        return qtdLivres;
+    }
+
+    public int getFrameCount() {
+        return qtdFrames;
+    }
+
+    // Percorre os frames do processo sem alocar: primeiroFrame(pcb), proximoFrame(f), ... até -1
+    public int primeiroFrame(SisOp_ProcessManager.PCB pcb) {
+        Integer cabeca = cabecaPorProcesso.get(pcb.getId());
+        return cabeca == null ? -1 : cabeca;
+    }
+    public int proximoFrame(int frame) {
+        return procProx[frame];
+    }
+
+    // Frames atualmente ocupados por um processo
+    public List<Integer> getResidentFrames(SisOp_ProcessManager.PCB pcb) {
+        List<Integer> frames = new ArrayList<>();
+        Integer cabeca = cabecaPorProcesso.get(pcb.getId());
+        for (int f = cabeca == null ? -1 : cabeca; f != -1; f = procProx[f]) {
+            frames.add(f);
         }
-        return -1; 
+        return frames;
     }
 
-    // Seleciona um frame para ser vitimado (substituição)
+    // Seleciona um frame para ser vitimado, segundo a política configurada (-1 se não houver)
     public int selectVictimFrame() {
-        for (int i = 0; i < qtdFrames; i++) {
-            if (frameMap[i] != null && frameMap[i].waiter == null) {
-                return i; 
+        return politica.selectVictim(this);
+    }
+
+    // Seleciona a vítima para a falta de página do processo. A página da instrução que faltou
+    // nunca sai (senão a falta se repete para sempre). Se todos os candidatos estão fixados,
+    // valem também as páginas fixadas do próprio processo e as de processos bloqueados ou
+    // suspensos: eles não vão usá-las agora, e sem isso as faltas poderiam esperar umas pelas outras.
+    // A fatia do processo acaba aqui, então a política já conta as referências que ele fez.
+    public int selectVictimFrame(SisOp_ProcessManager.PCB pcb) {
+        politica.onSliceEnd(this, pcb);
+        faltoso = pcb;
+        paginaInstrucao = pcb.getPc() / tamPg;
+        try {
+            int vitima = politica.selectVictim(this);
+            if (vitima == -1) {
+                respeitaFixados = false;
+                vitima = politica.selectVictim(this);
             }
+            return vitima;
+        } finally {
+            faltoso = null;
+            paginaInstrucao = -1;
+            respeitaFixados = true;
         }
-        
-        return 0; 
+    }
+
+    // Um frame pode ser vitimado se tem página já carregada, ninguém esperando por ele,
+    // não guarda o dado de uma E/S em curso, o dono já executou desde a carga e não está
+    // executando em outro núcleo (que pode ter traduzido o endereço antes da invalidação)
+    public boolean isCandidate(int frame) {
+        FrameInfo info = frameMap[frame];
+        if (info == null || info.waiter != null || info.emES) return false;
+        if (info.pcb != faltoso && info.pcb.getState() == SisOp_ProcessManager.ProcessState.RUNNING) return false;
+        if (info.fixado && (respeitaFixados || (info.pcb != faltoso && !foraDaDisputa(info.pcb)))) return false;
+        if (info.pcb == faltoso && info.pageNumber == paginaInstrucao) return false;
+        return info.pcb.getPageTable()[info.pageNumber].valid;
+    }
+
+    // Processo que não volta a executar tão cedo: bloqueado ou suspenso pelo controle de carga
+    private static boolean foraDaDisputa(SisOp_ProcessManager.PCB pcb) {
+        SisOp_ProcessManager.ProcessState estado = pcb.getState();
+        return estado == SisOp_ProcessManager.ProcessState.BLOCKED || estado == SisOp_ProcessManager.ProcessState.SUSPENDED;
+    }
+
+    // Frame que contém (ou está recebendo) a página do processo; -1 se nenhum
+    public int frameDaPagina(SisOp_ProcessManager.PCB pcb, int page) {
+        Integer cabeca = cabecaPorProcesso.get(pcb.getId());
+        for (int f = cabeca == null ? -1 : cabeca; f != -1; f = procProx[f]) {
+            if (frameMap[f].pageNumber == page) return f;
+        }
+        return -1;
+    }
+
+    // O processo executou ao menos uma instrução: suas páginas recém-carregadas (e o dado da
+    // última E/S) deixam de estar protegidos. Retorna true se algum frame passou a ser candidato.
+    public boolean liberaFixados(SisOp_ProcessManager.PCB pcb) {
+        boolean liberou = false;
+        Integer cabeca = cabecaPorProcesso.get(pcb.getId());
+        for (int f = cabeca == null ? -1 : cabeca; f != -1; f = procProx[f]) {
+            if (frameMap[f].fixado || frameMap[f].emES) {
+                frameMap[f].fixado = false;
+                frameMap[f].emES = false;
+                liberou = true;
+            }
+        }
+        return liberou;
+    }
+
+    // Entrada da tabela de páginas da página que ocupa o frame (null se livre)
+    public Hardware.PageTableEntry getEntry(int frame) {
+        FrameInfo info = frameMap[frame];
+        return info == null ? null : info.pcb.getPageTable()[info.pageNumber];
+    }
+
+    // Limpa o bit de referência da página no frame e tira a tradução das TLBs, pois um acerto
+    // na TLB não volta a ligá-lo
+    public void limpaReferencia(int frame) {
+        FrameInfo info = frameMap[frame];
+        if (info == null) return;
+        info.pcb.getPageTable()[info.pageNumber].referenced = false;
+        if (hw != null) hw.invalidateTLB(info.pcb.getId(), info.pageNumber);
+    }
+
+    public void setHW(Hardware.HW hw) {
+        this.hw = hw;
+    }
+
+    public ReplacementPolicy getPolicy() {
+        return politica;
+    }
+
+    // Avança o tempo da política (bits de referência/idade)
+    public void tick() {
+        politica.tick(this);
+    }
+
+    // A fatia do processo terminou: a política absorve os bits de referência das suas páginas
+    public void fimDeFatia(SisOp_ProcessManager.PCB pcb) {
+        politica.onSliceEnd(this, pcb);
     }
 
     // Retorna informações sobre um frame específico
@@ -81,13 +435,31 @@ public class SisOp_GM implements GM_Interface {
     // Marca um frame como ocupado por uma página
     public void occupyFrame(int frame, SisOp_ProcessManager.PCB pcb, int page) {
         if (frame < 0 || frame >= qtdFrames) return;
+        liberaDono(frame);
+        removeLivre(frame);
         frameMap[frame] = new FrameInfo(pcb, page);
+        ligaAoProcesso(frame, pcb.getId());
+        politica.onLoad(frame);
     }
     
     // Libera um frame específico
     public void freeFrame(int frame) {
         if (frame < 0 || frame >= qtdFrames) return;
+        liberaDono(frame);
         frameMap[frame] = null;
+        if (!livre[frame]) insereLivre(frame);
+        politica.onFree(frame);
+    }
+
+    // Retira o frame da lista do processo que o ocupa (se ainda estiver nela)
+    private void liberaDono(int frame) {
+        FrameInfo info = frameMap[frame];
+        if (info == null) return;
+        Integer cabeca = cabecaPorProcesso.get(info.pcb.getId());
+        if (cabeca != null && (cabeca == frame || procAnt[frame] != -1)) {
+            desligaDoProcesso(frame, info.pcb.getId());
+        }
+        procProx[frame] = procAnt[frame] = -1;
     }
     
     // Define processo esperando por este frame (durante swap)
@@ -1,14 +1,22 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
 
 // Gerenciador de processos: criação, escalonamento e controle de estados
 public class SisOp_ProcessManager {
 
     public enum ProcessState {
-        READY, RUNNING, TERMINATED, BLOCKED
+        READY, RUNNING, TERMINATED, BLOCKED, SUSPENDED
     }
 
     // Process Control Block: informações de um processo
@@ -17,9 +25,44 @@ public class SisOp_ProcessManager {
         private int pc;
         private Hardware.PageTableEntry[] pageTable; 
         private int[] registradores;
-        private ProcessState state;
+        // volátil: as transições são feitas sob o schedulerLock, mas ps, stats e as threads de
+        // dispositivo leem o estado sem a trava
+        private volatile ProcessState state;
         private int programId;
         private String programName;
+        private int core;
+        // detector de acesso sequencial da leitura antecipada: página cuja falta indicaria
+        // continuidade da sequência e tamanho atual da janela
+        private int proximaFaltaSequencial = -1;
+        private int janelaAntecipacao = -1;
+        // controle de carga: tempo virtual (instruções executadas), faltas e último uso de cada página
+        private long instrucoes = 0;
+        private long faltas = 0;
+        private long[] ultimoUso;
+        private long ativacao = 0;
+        private boolean suspenso = false;   // retirado da disputa por memória pelo controle de carga
+        private Conclusao conclusaoAdiada;  // E/S concluída antes de o processo bloquear por ela
+        private volatile boolean removido = false;   // rm pedido enquanto executava: o núcleo o desaloca
+        // contadores de desempenho (atualizados sob o schedulerLock; tempos em ticks do relógio)
+        private long quanta = 0, despachos = 0;
+        private long faltasMenores = 0, faltasSwap = 0, faltasPrograma = 0;
+        private final long[] tempoEstado = new long[ProcessState.values().length];
+        private long estadoDesde = 0, criacao = 0, primeiroDespacho = -1, termino = -1;
+        // escalonamento da CPU: prioridade (maior executa antes; são também os bilhetes da loteria
+        // e do stride), fila do MLFQ, quantum do round-robin adaptativo, passada do stride e
+        // quantum do despacho atual
+        private int prioridade = PRIORIDADE_PADRAO;
+        private int nivel = 0;
+        private int quantumAdaptado = 0;
+        private long passada = 0;
+        private int quantum;
+        // prazo de conclusão absoluto (ticks do relógio; -1 = sem prazo) e custo estimado usado
+        // no controle de admissão do EDF
+        private long prazo = -1;
+        private long custoEstimado = 0;
+        // encadeamento na fila de prontos em que o processo está (null fora de fila)
+        private FilaProntos fila;
+        private PCB anteriorFila, proximoFila;
 
         public PCB(int id, Hardware.PageTableEntry[] pageTable, int programId, String programName) {
             this.id = id;
@@ -29,6 +72,8 @@ public class SisOp_ProcessManager {
             this.registradores = new int[10];
             this.programId = programId;
             this.programName = programName;
+            this.ultimoUso = new long[pageTable.length];
+            Arrays.fill(this.ultimoUso, -1);
         }
         public int getId() { return id; }
         public void setContext(int pc, int[] regs) { this.pc = pc; this.registradores = Arrays.copyOf(regs, regs.length); }
@@ -39,91 +84,787 @@ public class SisOp_ProcessManager {
         public void setState(ProcessState state) { this.state = state; }
         public int getProgramId() { return programId; }
         public String getProgramName() { return programName; }
+        // Núcleo em cuja fila local o processo está (ou onde executou por último)
+        public int getCore() { return core; }
+        public int getProximaFaltaSequencial() { return proximaFaltaSequencial; }
+        public void setProximaFaltaSequencial(int pagina) { this.proximaFaltaSequencial = pagina; }
+        public int getJanelaAntecipacao() { return janelaAntecipacao; }
+        public void setJanelaAntecipacao(int janela) { this.janelaAntecipacao = janela; }
+        public long getInstrucoes() { return instrucoes; }
+        public long getFaltas() { return faltas; }
+        public long getAtivacao() { return ativacao; }
+        public void setAtivacao(long ativacao) { this.ativacao = ativacao; }
+        public boolean isSuspenso() { return suspenso; }
+        public boolean isRemovido() { return removido; }
+        public int getPrioridade() { return prioridade; }
+        public void setPrioridade(int prioridade) { this.prioridade = prioridade; }
+        // Quantum do despacho atual, definido pela política de escalonamento
+        public int getQuantum() { return quantum; }
+        public long getPrazo() { return prazo; }
+        public boolean temPrazo() { return prazo >= 0; }
+        // Prazo perdido: terminou depois dele ou, ainda ativo, já passou dele em 'agora'
+        public boolean perdeuPrazo(long agora) {
+            return prazo >= 0 && (termino >= 0 ? termino > prazo : agora > prazo);
+        }
+        // Registra a falta na página (conta para a taxa de faltas e para o conjunto de trabalho)
+        public void registraFalta(int pagina) {
+            faltas++;
+            ultimoUso[pagina] = instrucoes;
+        }
+        // Ao fim de uma fatia: avança o tempo virtual e marca as páginas residentes usadas na
+        // fatia. Usa o bit próprio do estimador (e o limpa), pois o 'referenced' só é limpo
+        // pela política de substituição, e em algumas nunca.
+        public void registraExecucao(int n) {
+            instrucoes += n;
+            for (int i = 0; i < pageTable.length; i++) {
+                Hardware.PageTableEntry e = pageTable[i];
+                if (e.valid && e.usado) {
+                    ultimoUso[i] = instrucoes;
+                    e.usado = false;
+                }
+            }
+        }
+        // Classifica a falta: resolvida sem ler o disco, lida do swap ou da imagem do programa
+        public void classificaFalta(boolean menor, boolean doSwap) {
+            if (menor) faltasMenores++;
+            else if (doSwap) faltasSwap++;
+            else faltasPrograma++;
+        }
+        public void marcaCriacao(long agora) { criacao = agora; estadoDesde = agora; }
+        // Fecha o tempo passado no estado atual e entra no novo; retorna a duração do anterior
+        public long contabilizaEstado(ProcessState novo, long agora) {
+            long duracao = Math.max(0, agora - estadoDesde);
+            tempoEstado[state.ordinal()] += duracao;
+            estadoDesde = agora;
+            if (novo == ProcessState.RUNNING) {
+                despachos++;
+                if (primeiroDespacho < 0) primeiroDespacho = agora;
+            } else if (novo == ProcessState.TERMINATED) {
+                termino = agora;
+            }
+            return duracao;
+        }
+        public void contaQuantum() { quanta++; }
+        public long getQuanta() { return quanta; }
+        public long getDespachos() { return despachos; }
+        public long getFaltasMenores() { return faltasMenores; }
+        public long getFaltasSwap() { return faltasSwap; }
+        public long getFaltasPrograma() { return faltasPrograma; }
+        // Tempo no estado; o estado atual conta até 'agora'
+        public long getTempo(ProcessState estado, long agora) {
+            return tempoEstado[estado.ordinal()] + (estado == state && termino < 0 ? Math.max(0, agora - estadoDesde) : 0);
+        }
+        public long getCriacao() { return criacao; }
+        // Tempo de resposta (criação até o primeiro despacho), ou -1 se nunca executou
+        public long getResposta() { return primeiroDespacho < 0 ? -1 : primeiroDespacho - criacao; }
+        // Tempo de retorno (criação até o término), ou -1 se não terminou
+        public long getRetorno() { return termino < 0 ? -1 : termino - criacao; }
+        // Estimativa do conjunto de trabalho: páginas usadas nas últimas 'tau' instruções do processo
+        public int conjuntoTrabalho(long tau) {
+            int n = 0;
+            for (long uso : ultimoUso) {
+                if (uso >= 0 && uso >= instrucoes - tau) n++;
+            }
+            return Math.max(1, n);
+        }
+    }
+
+    public static final int PRIORIDADE_PADRAO = 10;
+
+    // Fila de prontos intrusiva: os elos ficam no próprio PCB, de modo que inserir, retirar das
+    // pontas e remover um processo qualquer (desalocação, suspensão, escolha por prioridade ou
+    // prazo) custam O(1). Um processo está em no máximo uma fila por vez.
+    public static class FilaProntos implements Iterable<PCB> {
+        private PCB primeiro, ultimo;
+        private int tamanho = 0;
+
+        public void adiciona(PCB pcb) {
+            pcb.fila = this;
+            pcb.anteriorFila = ultimo;
+            pcb.proximoFila = null;
+            if (ultimo == null) primeiro = pcb; else ultimo.proximoFila = pcb;
+            ultimo = pcb;
+            tamanho++;
+        }
+        public boolean remove(PCB pcb) {
+            if (pcb.fila != this) return false;
+            if (pcb.anteriorFila == null) primeiro = pcb.proximoFila; else pcb.anteriorFila.proximoFila = pcb.proximoFila;
+            if (pcb.proximoFila == null) ultimo = pcb.anteriorFila; else pcb.proximoFila.anteriorFila = pcb.anteriorFila;
+            pcb.fila = null;
+            pcb.anteriorFila = pcb.proximoFila = null;
+            tamanho--;
+            return true;
+        }
+        public PCB tiraPrimeiro() {
+            PCB pcb = primeiro;
+            if (pcb != null) remove(pcb);
+            return pcb;
+        }
+        public PCB tiraUltimo() {
+            PCB pcb = ultimo;
+            if (pcb != null) remove(pcb);
+            return pcb;
+        }
+        public boolean isEmpty() { return tamanho == 0; }
+        public int tamanho() { return tamanho; }
+        // Percorre do primeiro ao último; o processo corrente pode ser removido durante o percurso
+        public Iterator<PCB> iterator() {
+            return new Iterator<PCB>() {
+                private PCB proximo = primeiro;
+                public boolean hasNext() { return proximo != null; }
+                public PCB next() {
+                    PCB atual = proximo;
+                    proximo = atual.proximoFila;
+                    return atual;
+                }
+            };
+        }
+    }
+
+    // Política de escalonamento da CPU: guarda os processos prontos de um núcleo, escolhe o
+    // próximo a executar e define o quantum de cada despacho. Cada núcleo tem a sua instância;
+    // o estado por processo (nível, passada, quantum adaptado) fica no PCB e acompanha o
+    // processo quando ele é roubado por outro núcleo.
+    public interface CpuScheduler {
+        String getName();
+        // Processo ficou pronto; esgotouQuantum indica que ele saiu da CPU por fim de fatia
+        // (e não por criação, desbloqueio ou retomada)
+        void adiciona(PCB pcb, boolean esgotouQuantum);
+        // Retira o próximo processo a executar; null se não houver
+        PCB proximo(long agora);
+        // Retira um processo para um núcleo ocioso (roubo de trabalho); null se não houver
+        PCB cede();
+        // Retira um processo específico (desalocação, suspensão)
+        boolean remove(PCB pcb);
+        int tamanho();
+        // Quantum do despacho que está começando
+        int quantum(PCB pcb);
+    }
+
+    // Round-robin: fila única, quantum fixo (critério original do simulador)
+    public static class RoundRobinScheduler implements CpuScheduler {
+        protected final FilaProntos fila = new FilaProntos();
+        protected final int quantumBase;
+        public RoundRobinScheduler(int quantum) { this.quantumBase = quantum; }
+        public String getName() { return "rr"; }
+        public void adiciona(PCB pcb, boolean esgotouQuantum) { fila.adiciona(pcb); }
+        public PCB proximo(long agora) { return fila.tiraPrimeiro(); }
+        public PCB cede() { return fila.tiraUltimo(); }
+        public boolean remove(PCB pcb) { return fila.remove(pcb); }
+        public int tamanho() { return fila.tamanho(); }
+        public int quantum(PCB pcb) { return quantumBase; }
+    }
+
+    // Round-robin com quantum adaptativo por processo: dobra (até 8x o base) a cada fatia
+    // esgotada e cai pela metade quando o processo bloqueia antes do fim, de modo que os
+    // processos presos à CPU trocam menos de contexto e os de E/S continuam com fatias curtas
+    public static class AdaptativoScheduler extends RoundRobinScheduler {
+        public AdaptativoScheduler(int quantum) { super(quantum); }
+        public String getName() { return "adaptativo"; }
+        public void adiciona(PCB pcb, boolean esgotouQuantum) {
+            int q = pcb.quantumAdaptado > 0 ? pcb.quantumAdaptado : quantumBase;
+            pcb.quantumAdaptado = esgotouQuantum ? Math.min(8 * quantumBase, 2 * q) : Math.max(quantumBase, q / 2);
+            fila.adiciona(pcb);
+        }
+        public int quantum(PCB pcb) { return pcb.quantumAdaptado > 0 ? pcb.quantumAdaptado : quantumBase; }
+    }
+
+    // Filas multinível com realimentação: quem esgota o quantum desce um nível (quantum dobra a
+    // cada nível); quem bloqueia antes mantém o nível. A cada 'reforco' ticks todos os prontos
+    // voltam ao primeiro nível, para que os processos longos não passem fome.
+    public static class MlfqScheduler implements CpuScheduler {
+        private final List<FilaProntos> filas = new ArrayList<>();
+        private final int quantumBase;
+        private final long reforco;
+        private long ultimoReforco = 0;
+        private int total = 0;
+        public MlfqScheduler(int quantum, int niveis, long reforco) {
+            this.quantumBase = quantum;
+            this.reforco = reforco;
+            for (int i = 0; i < Math.max(1, niveis); i++) filas.add(new FilaProntos());
+        }
+        public String getName() { return "mlfq"; }
+        public void adiciona(PCB pcb, boolean esgotouQuantum) {
+            if (esgotouQuantum && pcb.nivel < filas.size() - 1) pcb.nivel++;
+            pcb.nivel = Math.min(pcb.nivel, filas.size() - 1);
+            filas.get(pcb.nivel).adiciona(pcb);
+            total++;
+        }
+        public PCB proximo(long agora) {
+            if (reforco > 0 && agora - ultimoReforco >= reforco) {
+                ultimoReforco = agora;
+                for (int i = 1; i < filas.size(); i++) {
+                    for (PCB pcb = filas.get(i).tiraPrimeiro(); pcb != null; pcb = filas.get(i).tiraPrimeiro()) {
+                        pcb.nivel = 0;
+                        filas.get(0).adiciona(pcb);
+                    }
+                }
+            }
+            for (FilaProntos fila : filas) {
+                if (!fila.isEmpty()) {
+                    total--;
+                    return fila.tiraPrimeiro();
+                }
+            }
+            return null;
+        }
+        public PCB cede() {
+            for (int i = filas.size() - 1; i >= 0; i--) {
+                if (!filas.get(i).isEmpty()) {
+                    total--;
+                    return filas.get(i).tiraUltimo();
+                }
+            }
+            return null;
+        }
+        public boolean remove(PCB pcb) {
+            for (FilaProntos fila : filas) {
+                if (fila.remove(pcb)) {
+                    total--;
+                    return true;
+                }
+            }
+            return false;
+        }
+        public int tamanho() { return total; }
+        public int quantum(PCB pcb) { return quantumBase << pcb.nivel; }
+    }
+
+    // Prioridade estática com envelhecimento: executa o pronto de maior prioridade efetiva, que
+    // cresce um ponto a cada 'envelhecimento' ticks de espera na fila (0 desliga)
+    public static class PrioridadeScheduler implements CpuScheduler {
+        private final FilaProntos prontos = new FilaProntos();
+        private final int quantumBase;
+        private final long envelhecimento;
+        public PrioridadeScheduler(int quantum, long envelhecimento) {
+            this.quantumBase = quantum;
+            this.envelhecimento = envelhecimento;
+        }
+        public String getName() { return "prioridade"; }
+        public void adiciona(PCB pcb, boolean esgotouQuantum) { prontos.adiciona(pcb); }
+        private long efetiva(PCB pcb, long agora) {
+            return pcb.prioridade + (envelhecimento > 0 ? Math.max(0, agora - pcb.estadoDesde) / envelhecimento : 0);
+        }
+        public PCB proximo(long agora) {
+            PCB melhor = null;
+            long maior = Long.MIN_VALUE;
+            for (PCB pcb : prontos) {
+                long p = efetiva(pcb, agora);
+                if (p > maior) {
+                    maior = p;
+                    melhor = pcb;
+                }
+            }
+            if (melhor != null) prontos.remove(melhor);
+            return melhor;
+        }
+        public PCB cede() {
+            PCB pior = null;
+            for (PCB pcb : prontos) {
+                if (pior == null || pcb.prioridade < pior.prioridade) pior = pcb;
+            }
+            if (pior != null) prontos.remove(pior);
+            return pior;
+        }
+        public boolean remove(PCB pcb) { return prontos.remove(pcb); }
+        public int tamanho() { return prontos.tamanho(); }
+        public int quantum(PCB pcb) { return quantumBase; }
+    }
+
+    // Loteria: sorteia o próximo com chance proporcional aos bilhetes (a prioridade)
+    public static class LoteriaScheduler implements CpuScheduler {
+        private final FilaProntos prontos = new FilaProntos();
+        private final Random random = new Random();
+        private final int quantumBase;
+        public LoteriaScheduler(int quantum) { this.quantumBase = quantum; }
+        public String getName() { return "loteria"; }
+        public void adiciona(PCB pcb, boolean esgotouQuantum) { prontos.adiciona(pcb); }
+        public PCB proximo(long agora) {
+            if (prontos.isEmpty()) return null;
+            long total = 0;
+            for (PCB pcb : prontos) total += Math.max(1, pcb.prioridade);
+            long sorteado = (long) (random.nextDouble() * total);
+            for (PCB pcb : prontos) {
+                sorteado -= Math.max(1, pcb.prioridade);
+                if (sorteado < 0) {
+                    prontos.remove(pcb);
+                    return pcb;
+                }
+            }
+            return prontos.tiraUltimo();
+        }
+        public PCB cede() { return prontos.tiraUltimo(); }
+        public boolean remove(PCB pcb) { return prontos.remove(pcb); }
+        public int tamanho() { return prontos.tamanho(); }
+        public int quantum(PCB pcb) { return quantumBase; }
     }
 
-    private List<PCB> pcbList;
-    private Queue<PCB> readyQueue;
-    private Queue<PCB> blockedQueue;
-    private PCB runningProcess;
-    private int nextProcessId;
+    // Stride: versão determinística da loteria. Cada despacho avança a passada do processo em
+    // PASSO_UNITARIO / bilhetes e executa quem tem a menor; quem volta de um bloqueio entra na
+    // passada atual, sem acumular o crédito do tempo em que esteve parado.
+    public static class StrideScheduler implements CpuScheduler {
+        private static final long PASSO_UNITARIO = 1 << 20;
+        private final FilaProntos prontos = new FilaProntos();
+        private final int quantumBase;
+        private long passadaGlobal = 0;
+        public StrideScheduler(int quantum) { this.quantumBase = quantum; }
+        public String getName() { return "stride"; }
+        public void adiciona(PCB pcb, boolean esgotouQuantum) {
+            if (!esgotouQuantum) pcb.passada = Math.max(pcb.passada, passadaGlobal);
+            prontos.adiciona(pcb);
+        }
+        public PCB proximo(long agora) {
+            PCB menor = null;
+            for (PCB pcb : prontos) {
+                if (menor == null || pcb.passada < menor.passada) menor = pcb;
+            }
+            if (menor == null) return null;
+            prontos.remove(menor);
+            passadaGlobal = menor.passada;
+            menor.passada += PASSO_UNITARIO / Math.max(1, menor.prioridade);
+            return menor;
+        }
+        public PCB cede() { return prontos.tiraUltimo(); }
+        public boolean remove(PCB pcb) { return prontos.remove(pcb); }
+        public int tamanho() { return prontos.tamanho(); }
+        public int quantum(PCB pcb) { return quantumBase; }
+    }
+
+    // EDF (prazo mais próximo primeiro): executa o pronto de menor prazo absoluto; processos sem
+    // prazo só executam quando não há nenhum com prazo pronto, em ordem de chegada
+    public static class EdfScheduler implements CpuScheduler {
+        private final FilaProntos prontos = new FilaProntos();
+        private final int quantumBase;
+        public EdfScheduler(int quantum) { this.quantumBase = quantum; }
+        public String getName() { return "edf"; }
+        public void adiciona(PCB pcb, boolean esgotouQuantum) { prontos.adiciona(pcb); }
+        private static long chave(PCB pcb) { return pcb.prazo >= 0 ? pcb.prazo : Long.MAX_VALUE; }
+        public PCB proximo(long agora) {
+            PCB melhor = null;
+            for (PCB pcb : prontos) {
+                if (melhor == null || chave(pcb) < chave(melhor)) melhor = pcb;
+            }
+            if (melhor != null) prontos.remove(melhor);
+            return melhor;
+        }
+        public PCB cede() {
+            PCB ultimo = null;
+            for (PCB pcb : prontos) {
+                if (ultimo == null || chave(pcb) >= chave(ultimo)) ultimo = pcb;
+            }
+            if (ultimo != null) prontos.remove(ultimo);
+            return ultimo;
+        }
+        public boolean remove(PCB pcb) { return prontos.remove(pcb); }
+        public int tamanho() { return prontos.tamanho(); }
+        public int quantum(PCB pcb) { return quantumBase; }
+    }
+
+    // Cria a política de escalonamento da CPU pelo nome (rr, adaptativo, mlfq, prioridade, loteria, stride, edf)
+    public static CpuScheduler criaEscalonador(String nome, int quantum, int niveis, long reforco, long envelhecimento) {
+        switch (nome.toLowerCase()) {
+            case "edf": return new EdfScheduler(quantum);
+            case "adaptativo": return new AdaptativoScheduler(quantum);
+            case "mlfq": return new MlfqScheduler(quantum, niveis, reforco);
+            case "prioridade": return new PrioridadeScheduler(quantum, envelhecimento);
+            case "loteria": return new LoteriaScheduler(quantum);
+            case "stride": return new StrideScheduler(quantum);
+            case "rr": return new RoundRobinScheduler(quantum);
+            default:
+                System.out.println("Escalonador de CPU '" + nome + "' desconhecido. Usando round-robin.");
+                return new RoundRobinScheduler(quantum);
+        }
+    }
+
+    // Tabela de processos indexada pelo id: busca, inserção e remoção em O(1) e contagem por
+    // estado sempre pronta. Os ids dos processos que saem vão para uma lista de livres e são
+    // reaproveitados na ordem em que foram liberados (o mais antigo primeiro), de modo que a
+    // tabela só cresce até o pico de processos vivos. É alterada sob o schedulerLock; as
+    // leituras (ps, stats, dump, contagens) dispensam a trava.
+    public static class TabelaProcessos implements Iterable<PCB> {
+        private volatile AtomicReferenceArray<PCB> posicoes = new AtomicReferenceArray<>(64);
+        private final ArrayDeque<Integer> livres = new ArrayDeque<>();
+        private int proximoId = 1;
+        private volatile int tamanho = 0;
+        private final AtomicIntegerArray porEstado = new AtomicIntegerArray(ProcessState.values().length);
+
+        // Id para um processo novo: o livre mais antigo ou, se não há, um ainda não usado
+        public int novoId() {
+            Integer id = livres.poll();
+            return id != null ? id : proximoId++;
+        }
+        public void insere(PCB pcb) {
+            AtomicReferenceArray<PCB> p = posicoes;
+            if (pcb.getId() >= p.length()) {
+                AtomicReferenceArray<PCB> maior = new AtomicReferenceArray<>(Math.max(2 * p.length(), pcb.getId() + 1));
+                for (int i = 0; i < p.length(); i++) maior.set(i, p.get(i));
+                posicoes = p = maior;
+            }
+            p.set(pcb.getId(), pcb);
+            porEstado.incrementAndGet(pcb.getState().ordinal());
+            tamanho++;
+        }
+        // Retira o processo e libera o id para reuso
+        public boolean remove(PCB pcb) {
+            if (busca(pcb.getId()) != pcb) return false;
+            posicoes.set(pcb.getId(), null);
+            porEstado.decrementAndGet(pcb.getState().ordinal());
+            tamanho--;
+            livres.add(pcb.getId());
+            return true;
+        }
+        public PCB busca(int id) {
+            AtomicReferenceArray<PCB> p = posicoes;
+            return id > 0 && id < p.length() ? p.get(id) : null;
+        }
+        // Muda o estado do processo mantendo as contagens (o processo pode não estar na tabela)
+        public void mudaEstado(PCB pcb, ProcessState estado) {
+            if (busca(pcb.getId()) == pcb) {
+                porEstado.decrementAndGet(pcb.getState().ordinal());
+                porEstado.incrementAndGet(estado.ordinal());
+            }
+            pcb.setState(estado);
+        }
+        public int tamanho() { return tamanho; }
+        public boolean isEmpty() { return tamanho == 0; }
+        public int getQtd(ProcessState estado) { return porEstado.get(estado.ordinal()); }
+        // Percorre os processos em ordem de id
+        public Iterator<PCB> iterator() {
+            AtomicReferenceArray<PCB> p = posicoes;
+            return new Iterator<PCB>() {
+                private int i = avanca(0);
+                private int avanca(int de) {
+                    while (de < p.length() && p.get(de) == null) de++;
+                    return de;
+                }
+                public boolean hasNext() { return i < p.length(); }
+                public PCB next() {
+                    PCB pcb = p.get(i);
+                    i = avanca(i + 1);
+                    return pcb;
+                }
+            };
+        }
+    }
+
+    private final TabelaProcessos tabela = new TabelaProcessos();
+    private List<CpuScheduler> escalonadores;
+    private final Map<String, Integer> prioridadesPorPrograma = new HashMap<>();
+    // controle de admissão do EDF e tempo médio de CPU por programa (soma e quantidade das
+    // execuções terminadas), usado como estimativa de custo dos próximos processos
+    private boolean controleAdmissao = false;
+    private final Map<String, long[]> custoPorPrograma = new HashMap<>();
+    private long rejeitados = 0;
+    private PCB[] runningProcess;
+    // chave da imagem de cada processo no disco: nunca reaproveitada, ao contrário dos ids da
+    // tabela, para que uma carga atrasada não leia a imagem de outro processo com o mesmo id
+    private int proximaImagem = 1;
+    private int qtdSuspensos = 0;   // processos com a marca de suspensos (prontos ou bloqueados)
     private final Object schedulerLock = new Object();
+    // Conclusões de E/S vindas das threads de dispositivo, aplicadas pelos núcleos sob o
+    // schedulerLock: quem conclui só enfileira e acorda o núcleo, sem disputar a trava
+    private final Queue<Conclusao> conclusoes = new ConcurrentLinkedQueue<>();
+    // Threads dos núcleos no modo contínuo, acordadas com unpark quando há trabalho
+    private final AtomicReferenceArray<Thread> executores;
+
+    private static class Conclusao {
+        final PCB pcb;
+        final String motivo;
+        final long instante;
+        Conclusao(PCB pcb, String motivo, long instante) { this.pcb = pcb; this.motivo = motivo; this.instante = instante; }
+    }
 
     private SisOp so;
 
     public SisOp_ProcessManager(SisOp so) {
         this.so = so;
-        this.pcbList = new ArrayList<>();
-        this.readyQueue = new LinkedList<>();
-        this.blockedQueue = new LinkedList<>();
-        this.runningProcess = null;
-        this.nextProcessId = 1;
+        int nucleos = so.hw.cpus.length;
+        this.escalonadores = new ArrayList<>();
+        for (int i = 0; i < nucleos; i++) {
+            this.escalonadores.add(new RoundRobinScheduler(4));
+        }
+        this.runningProcess = new PCB[nucleos];
+        this.executores = new AtomicReferenceArray<>(nucleos);
     }
 
-    public PCB getRunningProcess() { return runningProcess; }
-    public Queue<PCB> getReadyQueue() { return readyQueue; }
-    public Queue<PCB> getBlockedQueue() { return blockedQueue; }
+    public int getNumCores() { return runningProcess.length; }
+    public PCB getRunningProcess(int core) { return runningProcess[core]; }
+    public CpuScheduler getEscalonador(int core) { return escalonadores.get(core); }
+    // Quantidade de processos em um estado (os suspensos ainda bloqueados contam como BLOCKED)
+    public int getQtdPorEstado(ProcessState estado) { return tabela.getQtd(estado); }
     public Object getSchedulerLock() { return schedulerLock; }
 
-    // Executa todos os processos em modo bloqueante
-    public void execAllBlocking(int quantum) {
+    // Registra a thread que executa o núcleo no modo contínuo
+    public void registraExecutor(int core, Thread thread) { executores.set(core, thread); }
+
+    // Acorda a thread do núcleo; se ele está ocupado, acorda também um núcleo ocioso, que pode
+    // roubar o processo da fila
+    private void acordaNucleo(int core) {
+        Thread t = executores.get(core);
+        if (t != null) LockSupport.unpark(t);
+        if (runningProcess[core] == null) return;
+        for (int i = 0; i < getNumCores(); i++) {
+            if (i != core && runningProcess[i] == null && (t = executores.get(i)) != null) {
+                LockSupport.unpark(t);
+                return;
+            }
+        }
+    }
+
+    // Troca a política de escalonamento de todos os núcleos (na inicialização, sem processos prontos)
+    public void setEscalonador(String nome, int quantum, int niveis, long reforco, long envelhecimento) {
+        synchronized (schedulerLock) {
+            for (int i = 0; i < escalonadores.size(); i++) {
+                CpuScheduler novo = criaEscalonador(nome, quantum, niveis, reforco, envelhecimento);
+                CpuScheduler antigo = escalonadores.get(i);
+                for (PCB pcb = antigo.proximo(0); pcb != null; pcb = antigo.proximo(0)) novo.adiciona(pcb, false);
+                escalonadores.set(i, novo);
+            }
+        }
+    }
+
+    // Liga o controle de admissão de processos com prazo (usado com o EDF)
+    public void setControleAdmissao(boolean ligado) { this.controleAdmissao = ligado; }
+    public boolean isControleAdmissao() { return controleAdmissao; }
+    public long getRejeitados() { synchronized (schedulerLock) { return rejeitados; } }
+
+    // Custo estimado (ticks de CPU) de um processo do programa: a média das execuções já
+    // terminadas ou, sem histórico, o tamanho do código (uma passada por instrução)
+    private long estimaCusto(String progName, int tamanho) {
+        long[] h = custoPorPrograma.get(progName);
+        return h != null && h[1] > 0 ? Math.max(1, h[0] / h[1]) : Math.max(1, tamanho);
+    }
+
+    // Teste de densidade do EDF: a soma de custo/prazo dos processos com prazo ainda no sistema,
+    // incluindo o candidato, não pode passar do número de núcleos
+    private boolean admite(long custo, long prazoRelativo) {
+        double densidade = (double) custo / Math.max(1, prazoRelativo);
+        for (PCB pcb : tabela) {
+            if (pcb.prazo >= 0) densidade += (double) pcb.custoEstimado / Math.max(1, pcb.prazo - pcb.criacao);
+        }
+        return densidade <= getNumCores();
+    }
+
+    // Prioridades iniciais por programa, no formato "programa=prioridade,..."; retorna false
+    // (sem alterar nada) se a configuração for inválida
+    public boolean setPrioridades(String spec) {
+        Map<String, Integer> novas = new HashMap<>();
+        for (String parte : spec.split(",")) {
+            String[] kv = parte.trim().split("=");
+            if (kv.length != 2) return false;
+            try { novas.put(kv[0].trim(), Integer.parseInt(kv[1].trim())); }
+            catch (NumberFormatException e) { return false; }
+        }
+        synchronized (schedulerLock) { prioridadesPorPrograma.putAll(novas); }
+        return true;
+    }
+
+    // Altera a prioridade de um processo (vale a partir da próxima escolha do escalonador)
+    public void definePrioridade(int id, int prioridade) {
+        synchronized (schedulerLock) {
+            PCB pcb = findPcbById(id);
+            if (pcb == null) {
+                System.out.println("Erro: Processo com ID " + id + " não encontrado.");
+                return;
+            }
+            pcb.prioridade = prioridade;
+            System.out.println("Processo " + id + " com prioridade " + prioridade + ".");
+        }
+    }
+
+    // Indica se algum núcleo está executando um processo
+    public boolean hasRunningProcess() {
+        for (PCB pcb : runningProcess)
+            if (pcb != null)
+                return true;
+        return false;
+    }
+
+    // Indica se há processo pronto em alguma fila (local ou de outro núcleo, via roubo) ou
+    // conclusão de E/S ainda não aplicada (as de processos em execução ficam no PCB, fora da fila)
+    public boolean hasReadyProcess() {
+        if (!conclusoes.isEmpty()) return true;
+        for (CpuScheduler escalonador : escalonadores)
+            if (escalonador.tamanho() > 0)
+                return true;
+        return false;
+    }
+
+    // Escolhe o núcleo menos carregado para receber um novo processo
+    private int escolheNucleo() {
+        int melhor = 0;
+        int menorCarga = Integer.MAX_VALUE;
+        for (int i = 0; i < escalonadores.size(); i++) {
+            int carga = escalonadores.get(i).tamanho() + (runningProcess[i] != null ? 1 : 0);
+            if (carga < menorCarga) {
+                menorCarga = carga;
+                melhor = i;
+            }
+        }
+        return melhor;
+    }
+
+    // Quantidade de processos no sistema (não terminados)
+    public int getQtdProcessos() {
+        return tabela.tamanho();
+    }
+
+    // Tempo de execução ainda não contabilizado dos processos que estão nos núcleos
+    public long tempoExecutandoAgora() {
+        synchronized (schedulerLock) {
+            long agora = so.relogio.agora(), t = 0;
+            for (PCB pcb : runningProcess) {
+                if (pcb != null) t += Math.max(0, agora - pcb.estadoDesde);
+            }
+            return t;
+        }
+    }
+
+    // Muda o estado do processo, contabiliza o tempo no estado anterior e registra a
+    // transição no rastro de eventos
+    private void mudaEstado(PCB pcb, ProcessState estado) {
+        mudaEstado(pcb, estado, so.relogio.agora());
+    }
+
+    // Idem, num instante dado (o da conclusão de uma E/S aplicada depois)
+    private void mudaEstado(PCB pcb, ProcessState estado, long instante) {
+        long duracao = pcb.contabilizaEstado(estado, instante);
+        if (pcb.getState() == ProcessState.RUNNING) so.estatisticas.registraOcupacao(duracao);
+        if (estado == ProcessState.RUNNING) so.estatisticas.registraDespacho();
+        tabela.mudaEstado(pcb, estado);
+        if (estado == ProcessState.TERMINATED) so.estatisticas.registraTermino(pcb);
+        so.trace.registra(SisOp.Trace.TRANSICAO, pcb.getId(), -1, -1, estado.ordinal(), estado == ProcessState.RUNNING ? pcb.core : -1);
+    }
+
+    // Entrega o processo ao escalonador do núcleo indicado
+    private void enfileiraPronto(PCB pcb, int core, boolean esgotouQuantum) {
+        pcb.core = core;
+        escalonadores.get(core).adiciona(pcb, esgotouQuantum);
+    }
+
+    // Pede o próximo processo ao escalonador local; se vazio, rouba do núcleo com mais prontos
+    private PCB proximoProcesso(int core) {
+        PCB pcb = escalonadores.get(core).proximo(so.relogio.agora());
+        if (pcb != null) return pcb;
+        CpuScheduler vitima = null;
+        for (int i = 0; i < escalonadores.size(); i++) {
+            CpuScheduler e = escalonadores.get(i);
+            if (i != core && e.tamanho() > 0 && (vitima == null || e.tamanho() > vitima.tamanho())) {
+                vitima = e;
+            }
+        }
+        if (vitima == null) return null;
+        pcb = vitima.cede();
+        pcb.core = core;
+        if (getNumCores() > 1) {
+            if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.println("Núcleo " + core + " roubou o Processo " + pcb.getId() + ".");
+        }
+        return pcb;
+    }
+
+    // Executa todos os processos em modo bloqueante (os núcleos avançam intercalados nesta thread)
+    public void execAllBlocking() {
         if (so.getMode() == SisOp.ExecutionMode.THREADED) {
             System.out.println("Comando 'execAll' não está disponível no modo de execução contínua (threaded).");
             return;
         }
-        if (readyQueue.isEmpty()) {
+        if (!hasReadyProcess()) {
             System.out.println("Nenhum processo na fila de prontos para executar.");
             return;
         }
         System.out.println("---------------------------------- Iniciando execução BLOQUEANTE de processos");
-        while (runningProcess != null || !readyQueue.isEmpty()) {
-            if (runningProcess == null) {
-                escalonar(false);
+        while (hasRunningProcess() || hasReadyProcess()) {
+            rodadaBloqueante();
+        }
+        System.out.println("---------------------------------- Todos os processos terminaram (modo bloqueante).");
+    }
+
+    // Uma rodada do modo bloqueante: cada núcleo despacha um processo, se estiver livre, e executa uma fatia
+    public void rodadaBloqueante() {
+        for (int core = 0; core < getNumCores(); core++) {
+            if (runningProcess[core] == null && hasReadyProcess()) {
+                escalonar(core, false);
             }
-            if (runningProcess != null) {
-                so.hw.cpu.step(quantum);
+            PCB atual = runningProcess[core];
+            if (atual != null) {
+                so.hw.cpus[core].step(atual.quantum);
             }
         }
-        System.out.println("---------------------------------- Todos os processos terminaram (modo bloqueante).");
     }
 
     public int criaProcesso(Hardware.Word[] programa, String progName) {
+        return criaProcesso(programa, progName, -1);
+    }
+
+    // Cria um processo com prazo de conclusão relativo (em ticks a partir da criação; -1 = sem
+    // prazo). Com o controle de admissão ligado, um processo com prazo que tornaria o conjunto
+    // inviável é rejeitado e o retorno é -1.
+    public int criaProcesso(Hardware.Word[] programa, String progName, long prazoRelativo) {
         synchronized (schedulerLock) {
             if (programa == null) {
                 System.out.println("Erro: Programa não encontrado.");
                 return -1;
             }
+            long custo = estimaCusto(progName, programa.length);
+            if (controleAdmissao && prazoRelativo >= 0 && !admite(custo, prazoRelativo)) {
+                rejeitados++;
+                if (SisOp_Diag.info(SisOp_Diag.ESCALONADOR)) System.out.println("Processo " + progName + " (prazo " + prazoRelativo + ") rejeitado pelo controle de admissão.");
+                return -1;
+            }
             
             Hardware.PageTableEntry[] tabelaPaginas = so.gm.createPageTable(programa.length);
-            PCB pcb = new PCB(nextProcessId++, tabelaPaginas, -1, progName); 
-            pcb.programId = pcb.getId(); 
+            PCB pcb = new PCB(tabela.novoId(), tabelaPaginas, -1, progName); 
+            pcb.marcaCriacao(so.relogio.agora());
+            if (prazoRelativo >= 0) pcb.prazo = pcb.criacao + prazoRelativo;
+            pcb.custoEstimado = custo;
+            pcb.prioridade = prioridadesPorPrograma.getOrDefault(progName, PRIORIDADE_PADRAO);
+            so.estatisticas.processoCriado(pcb);
+            so.loadController.processoAdmitido(pcb);
+            pcb.programId = proximaImagem++;
 
-            so.diskManager.saveProgramToStore(pcb.getProgramId(), programa);
+            long[] imagem = Hardware.Memory.pack(programa);
+            so.diskManager.saveProgramToStore(pcb.getProgramId(), imagem);
 
             int frame = so.gm.findFreeFrame();
+            int victimFrame = -1;
+            SisOp_GM.FrameInfo victimInfo = null;
             
             if (frame == -1) {
-                System.out.println("--- criaProcesso: RAM cheia. Iniciando vitimização para P" + pcb.getId() + " (Página 0)");
-                int victimFrame = so.gm.selectVictimFrame();
-                SisOp_GM.FrameInfo victimInfo = so.gm.getFrameInfo(victimFrame);
+                if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- criaProcesso: RAM cheia. Iniciando vitimização para P" + pcb.getId() + " (Página 0)");
+                victimFrame = so.gm.selectVictimFrame();
+                victimInfo = so.gm.getFrameInfo(victimFrame);
                 
-                if (victimInfo == null || victimInfo.waiter != null) {
-                    System.out.println("Erro Crítico: Vitimização falhou (vítima inválida ou já esperando).");
-                    so.diskManager.clearSwap(pcb.getId()); 
-                    return -1;
+                if (victimInfo == null || victimInfo.waiter != null || !so.vmManager.podeDespejar(victimInfo)) {
+                    // nenhum frame pode ser cedido agora: o processo nasce sem páginas residentes
+                    // e carrega a página 0 por falta de página quando executar pela primeira vez
+                    if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- criaProcesso: Nenhuma vítima disponível. P" + pcb.getId() + " criado sem páginas carregadas.");
+                    tabela.insere(pcb);
+                    enfileiraPronto(pcb, escolheNucleo(), false);
+                    so.logger.log(pcb.getId(), pcb.getProgramName(), "criacao", "NULO", "PRONTO", pcb.getPageTable());
+                    so.trace.registra(SisOp.Trace.CRIACAO, pcb.getId(), -1, -1, ProcessState.READY.ordinal(), -1);
+                    acordaNucleo(pcb.getCore());
+                    return pcb.getId();
                 }
                 
-                System.out.println("--- criaProcesso: Frame " + victimFrame + " (Processo " + victimInfo.pcb.getId() + ", Página " + victimInfo.pageNumber + ") foi vitimado.");
+                if (SisOp_Diag.debug(SisOp_Diag.MEMORIA)) System.out.println("--- criaProcesso: Frame " + victimFrame + " (Processo " + victimInfo.pcb.getId() + ", Página " + victimInfo.pageNumber + ") foi vitimado.");
+                so.vmManager.contaVitimizacao(victimFrame, victimInfo);
 
-                victimInfo.pcb.getPageTable()[victimInfo.pageNumber].valid = false;
-                victimInfo.pcb.getPageTable()[victimInfo.pageNumber].onDisk = true;
-                
+                if (so.vmManager.despejaPagina(victimInfo)) {
+                    // página limpa: o frame fica disponível de imediato
+                    so.gm.freeFrame(victimFrame);
+                    frame = victimFrame;
+                }
+            }
+
+            if (frame == -1) {
                 so.gm.setWaiter(victimFrame, pcb, 0); 
                 
                 so.diskManager.requestSave(victimInfo.pcb, victimInfo.pageNumber, victimFrame);
                 
-                pcbList.add(pcb);
-                blockedQueue.add(pcb);
+                pcb.core = escolheNucleo();
                 pcb.setState(ProcessState.BLOCKED);
+                tabela.insere(pcb);
+                so.trace.registra(SisOp.Trace.CRIACAO, pcb.getId(), -1, -1, ProcessState.BLOCKED.ordinal(), -1);
                 
                 so.logger.log(pcb.getId(), pcb.getProgramName(), "criacao_vitim", "NULO", "BLOQUEADO", pcb.getPageTable());
                 
@@ -133,24 +874,27 @@ public class SisOp_ProcessManager {
                 so.gm.occupyFrame(frame, pcb, 0);
                 tabelaPaginas[0].valid = true;
                 tabelaPaginas[0].frameNumber = frame;
+                tabelaPaginas[0].referenced = true;
 
-                so.utils.loadPage(programa, frame, 0);
+                so.utils.loadPage(imagem, frame, 0);
 
-                pcbList.add(pcb);
-                readyQueue.add(pcb);
-                System.out.println("Processo " + pcb.getId() + " ("+progName+") criado. Página 0 carregada no frame " + frame + ".");
+                tabela.insere(pcb);
+                enfileiraPronto(pcb, escolheNucleo(), false);
+                if (SisOp_Diag.info(SisOp_Diag.ESCALONADOR)) System.out.println("Processo " + pcb.getId() + " ("+progName+") criado. Página 0 carregada no frame " + frame + ".");
 
                 so.logger.log(pcb.getId(), pcb.getProgramName(), "criacao", "NULO", "PRONTO", pcb.getPageTable());
+                so.trace.registra(SisOp.Trace.CRIACAO, pcb.getId(), -1, -1, ProcessState.READY.ordinal(), -1);
 
-                if (so.getMode() == SisOp.ExecutionMode.THREADED) {
-                    schedulerLock.notifyAll();
-                }
+                acordaNucleo(pcb.getCore());
                 return pcb.getId();
             }
         }
     }
 
-    // Remove um processo do sistema
+    // Remove um processo do sistema. Um processo executando em um núcleo do modo contínuo só é
+    // marcado: a thread do núcleo, na próxima interrupção (sinalizada aqui) ou ao bloqueá-lo, o
+    // desaloca entre duas instruções. Desalocar daqui trocaria o contexto com a CPU executando,
+    // e as faltas e syscalls dele seriam atribuídas ao processo despachado no lugar.
     public void desalocaProcesso(int id) {
         synchronized (schedulerLock) {
             PCB pcb = findPcbById(id);
@@ -158,159 +902,353 @@ public class SisOp_ProcessManager {
                 System.out.println("Erro: Processo com ID " + id + " não encontrado.");
                 return;
             }
-            so.gm.desaloca(pcb); 
-            so.diskManager.clearSwap(pcb.getId()); 
-            
-            pcbList.remove(pcb);
-            readyQueue.remove(pcb);
-            blockedQueue.remove(pcb); 
-            if (runningProcess != null && runningProcess.getId() == id) {
-                runningProcess = null;
-                terminaProcessoAtual();
+            if (pcb.removido) return;
+            for (int core = 0; core < getNumCores(); core++) {
+                Thread executor = executores.get(core);
+                if (runningProcess[core] == pcb && executor != null && executor != Thread.currentThread()) {
+                    pcb.removido = true;
+                    so.hw.cpus[core].sinalizaES();
+                    return;
+                }
+            }
+            desaloca(pcb);
+        }
+    }
+
+    // O núcleo vai tratar uma interrupção: se o processo em execução teve a remoção pedida,
+    // desaloca-o agora. Retorna true se desalocou.
+    public boolean desalocaSeRemovido(int core) {
+        synchronized (schedulerLock) {
+            PCB pcb = runningProcess[core];
+            if (pcb == null || !pcb.removido) return false;
+            desaloca(pcb);
+            return true;
+        }
+    }
+
+    // Retira o processo do sistema (sob o schedulerLock)
+    private void desaloca(PCB pcb) {
+        int id = pcb.getId();
+        so.trace.registra(SisOp.Trace.TRANSICAO, pcb.getId(), -1, -1, ProcessState.TERMINATED.ordinal(), -1);
+        so.estatisticas.processoRemovido(pcb);
+        so.gm.desaloca(pcb, so.diskManager.cancelaPedidos(pcb));
+        so.hw.invalidateTLB(pcb.getId());
+        so.diskManager.clearSwap(pcb); 
+        so.diskManager.descartaPrograma(pcb);
+        so.vmManager.acordaEsperandoFrame();
+        
+        tabela.remove(pcb);
+        if (pcb.suspenso) qtdSuspensos--;
+        for (CpuScheduler escalonador : escalonadores) {
+            escalonador.remove(pcb);
+        }
+        pcb.setState(ProcessState.TERMINATED);   // conclusões de E/S ainda pendentes são descartadas
+        so.deviceManager.esquece(id);
+        so.loadController.processoSaiu(pcb);
+        for (int core = 0; core < getNumCores(); core++) {
+            if (runningProcess[core] == pcb) {
+                runningProcess[core] = null;
+                escalonar(core, true);
+            }
+        }
+        System.out.println("Processo " + id + " desalocado.");
+    }
+
+    // Soma ao processo as instruções executadas na fatia que está terminando. Se executou alguma,
+    // as páginas que ele carregou já serviram e deixam de estar fixadas; de todo modo, fora da
+    // CPU os frames dele voltam a ser candidatos, e quem esperava frame tenta de novo. O
+    // estimador do conjunto de trabalho limpa os bits de uso, então as traduções saem das TLBs.
+    private void contabilizaFatia(int core, PCB pcb) {
+        int n = so.hw.cpus[core].getInstructionCounter();
+        if (n > 0) so.gm.liberaFixados(pcb);
+        so.vmManager.acordaEsperandoFrame();
+        pcb.registraExecucao(n);
+        so.gm.fimDeFatia(pcb);
+        so.hw.invalidateTLB(pcb.getId());
+        so.loadController.registraExecucao(n);
+        so.relogio.avanca(n);
+        so.estatisticas.registraInstrucoes(n);
+    }
+
+    // Suspende um processo escolhido pelo controle de carga. Um processo pronto sai da fila;
+    // um bloqueado continua esperando e, ao ser desbloqueado, fica suspenso em vez de pronto.
+    public boolean suspende(PCB pcb) {
+        synchronized (schedulerLock) {
+            if (pcb.suspenso || (pcb.getState() != ProcessState.READY && pcb.getState() != ProcessState.BLOCKED)) return false;
+            pcb.suspenso = true;
+            qtdSuspensos++;
+            String anterior = pcb.getState() == ProcessState.READY ? "PRONTO" : "BLOQUEADO";
+            if (pcb.getState() == ProcessState.READY) {
+                for (CpuScheduler escalonador : escalonadores) {
+                    escalonador.remove(pcb);
+                }
+                mudaEstado(pcb, ProcessState.SUSPENDED);
+            }
+            so.logger.log(pcb.getId(), pcb.getProgramName(), "suspensao_carga", anterior, "SUSPENSO", pcb.getPageTable());
+            if (SisOp_Diag.info(SisOp_Diag.CARGA)) System.out.println("Processo " + pcb.getId() + " SUSPENSO pelo controle de carga.");
+            return true;
+        }
+    }
+
+    // Devolve um processo suspenso à disputa: se não está mais bloqueado, volta à fila de prontos
+    public void retoma(PCB pcb) {
+        synchronized (schedulerLock) {
+            if (!pcb.suspenso) return;
+            pcb.suspenso = false;
+            qtdSuspensos--;
+            so.logger.log(pcb.getId(), pcb.getProgramName(), "retomada_carga", "SUSPENSO", pcb.getState() == ProcessState.SUSPENDED ? "PRONTO" : "BLOQUEADO", pcb.getPageTable());
+            if (SisOp_Diag.info(SisOp_Diag.CARGA)) System.out.println("Processo " + pcb.getId() + " RETOMADO pelo controle de carga.");
+            if (pcb.getState() == ProcessState.SUSPENDED) {
+                mudaEstado(pcb, ProcessState.READY);
+                enfileiraPronto(pcb, pcb.getCore(), false);
+                acordaNucleo(pcb.getCore());
+            }
+        }
+    }
+
+    // Processo a suspender: entre os prontos ou bloqueados ainda não suspensos, o ativado mais
+    // recentemente (null se não há)
+    public PCB getSuspensivelMaisRecente() {
+        synchronized (schedulerLock) {
+            PCB escolhido = null;
+            for (PCB pcb : tabela) {
+                if (pcb.suspenso || (pcb.getState() != ProcessState.READY && pcb.getState() != ProcessState.BLOCKED)) continue;
+                if (escolhido == null || pcb.getAtivacao() > escolhido.getAtivacao()) escolhido = pcb;
             }
-            System.out.println("Processo " + id + " desalocado.");
+            return escolhido;
         }
     }
 
+    // Quantidade de processos que disputam memória (não suspensos)
+    public int getQtdAtivos() {
+        synchronized (schedulerLock) { return tabela.tamanho() - qtdSuspensos; }
+    }
+
     // Busca PCB pelo ID do processo
     private PCB findPcbById(int id) {
-        for (PCB pcb : pcbList)
-            if (pcb.getId() == id)
-                return pcb;
-        return null;
+        return tabela.busca(id);
     }
 
-    // Escalona o próximo processo da fila de prontos
-    public void escalonar(boolean processoTerminou) {
+    // Escalona o próximo processo para o núcleo 'core'
+    public void escalonar(int core, boolean processoTerminou) {
         synchronized (schedulerLock) {
-            if (runningProcess != null && !processoTerminou) {
-                PCB preemptedPcb = runningProcess; 
-                runningProcess.setContext(so.hw.cpu.getContextPC(), so.hw.cpu.getContextRegs());
-                runningProcess.setState(ProcessState.READY);
-                readyQueue.add(runningProcess);
-                System.out.println("Processo " + runningProcess.getId() + " salvo (quantum) e movido para a fila de prontos.\n");
+            Hardware.CPU cpu = so.hw.cpus[core];
+            absorveConclusoes();
+            if (runningProcess[core] != null && !processoTerminou) {
+                PCB preemptedPcb = runningProcess[core]; 
+                contabilizaFatia(core, preemptedPcb);
+                preemptedPcb.contaQuantum();
+                so.estatisticas.registraQuantum();
+                preemptedPcb.setContext(cpu.getContextPC(), cpu.getContextRegs());
+                mudaEstado(preemptedPcb, ProcessState.READY);
+                enfileiraPronto(preemptedPcb, core, true);
+                if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.println("Processo " + preemptedPcb.getId() + " salvo (quantum) e movido para a fila de prontos.\n");
                 
                 so.logger.log(preemptedPcb.getId(), preemptedPcb.getProgramName(), "fatia_tempo", "EXECUTANDO", "PRONTO", preemptedPcb.getPageTable());
             }
 
-            if (readyQueue.isEmpty()) {
-                runningProcess = null;
-                so.hw.cpu.stop(); 
+            PCB proximo = proximoProcesso(core);
+            if (proximo == null) {
+                runningProcess[core] = null;
+                cpu.stop(); 
+                so.relogio.avisa();   // núcleo ocioso: o relógio virtual pode saltar
+                String nucleo = getNumCores() > 1 ? " (núcleo " + core + ")" : "";
                 if (so.getMode() == SisOp.ExecutionMode.BLOCKING) {
-                    System.out.println("---------------------------------- Fila de prontos vazia. Fim do 'execAll'.");
+                    if (SisOp_Diag.info(SisOp_Diag.ESCALONADOR)) System.out.println("---------------------------------- Fila de prontos vazia" + nucleo + ". Fim do 'execAll'.");
                 } else {
-                    System.out.println("---------------------------------- Fila de prontos vazia. CPU em espera.");
-                    System.out.print("> "); 
+                    if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.println("---------------------------------- Fila de prontos vazia" + nucleo + ". CPU em espera.");
+                    if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.print("> "); 
                 }
                 return;
             }
 
-            runningProcess = readyQueue.poll();
-            runningProcess.setState(ProcessState.RUNNING);
+            runningProcess[core] = proximo;
+            proximo.quantum = escalonadores.get(core).quantum(proximo);
+            mudaEstado(proximo, ProcessState.RUNNING);
             
-            so.logger.log(runningProcess.getId(), runningProcess.getProgramName(), "escalonador", "PRONTO", "EXECUTANDO", runningProcess.getPageTable());
+            so.logger.log(proximo.getId(), proximo.getProgramName(), "escalonador", "PRONTO", "EXECUTANDO", proximo.getPageTable());
             
-            so.hw.cpu.setContext(runningProcess.getPc(), runningProcess.getRegistradores());
-            so.hw.cpu.setMMU(runningProcess.getPageTable()); 
-            so.hw.cpu.resetInstructionCounter();
-            so.hw.cpu.start(); 
+            cpu.setContext(proximo.getPc(), proximo.getRegistradores());
+            cpu.setMMU(proximo.getPageTable(), proximo.getId()); 
+            cpu.resetInstructionCounter();
+            cpu.start(); 
             
-            System.out.println(">>> Assumindo CPU: Processo " + runningProcess.getId());
+            if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.println(">>> Assumindo CPU" + (getNumCores() > 1 ? " " + core : "") + ": Processo " + proximo.getId());
         }
     }
 
-    // Finaliza o processo em execução
-    public void terminaProcessoAtual() {
+    // Finaliza o processo em execução no núcleo 'core'
+    public void terminaProcessoAtual(int core) {
         synchronized (schedulerLock) {
-            if (runningProcess == null)
+            if (runningProcess[core] == null)
                 return;
 
-            PCB terminatedPcb = runningProcess; 
-            System.out.println("Processo " + terminatedPcb.getId() + " terminou.");
-            terminatedPcb.setState(ProcessState.TERMINATED);
+            PCB terminatedPcb = runningProcess[core]; 
+            contabilizaFatia(core, terminatedPcb);
+            if (SisOp_Diag.info(SisOp_Diag.ESCALONADOR)) System.out.println("Processo " + terminatedPcb.getId() + " terminou.");
+            mudaEstado(terminatedPcb, ProcessState.TERMINATED);
+            long[] h = custoPorPrograma.computeIfAbsent(terminatedPcb.getProgramName(), k -> new long[2]);
+            h[0] += terminatedPcb.getTempo(ProcessState.RUNNING, 0);
+            h[1]++;
+            if (terminatedPcb.perdeuPrazo(0) && SisOp_Diag.info(SisOp_Diag.ESCALONADOR)) {
+                System.out.println("Processo " + terminatedPcb.getId() + " perdeu o prazo (" + terminatedPcb.prazo + ").");
+            }
             
             so.logger.log(terminatedPcb.getId(), terminatedPcb.getProgramName(), "finalizacao", "EXECUTANDO", "TERMINADO", terminatedPcb.getPageTable());
 
-            so.gm.desaloca(terminatedPcb); 
-            so.diskManager.clearSwap(terminatedPcb.getId()); 
+            so.gm.desaloca(terminatedPcb, so.diskManager.cancelaPedidos(terminatedPcb));
+            so.hw.invalidateTLB(terminatedPcb.getId());
+            so.diskManager.clearSwap(terminatedPcb); 
+            so.diskManager.descartaPrograma(terminatedPcb);
+            so.vmManager.acordaEsperandoFrame();
             
-            pcbList.remove(terminatedPcb);
-            runningProcess = null;
-            escalonar(true); 
+            tabela.remove(terminatedPcb);
+            so.deviceManager.esquece(terminatedPcb.getId());
+            runningProcess[core] = null;
+            so.loadController.processoSaiu(terminatedPcb);
+            escalonar(core, true); 
         }
     }
 
-    // Bloqueia o processo atual (por E/S ou page fault)
-    public void blockCurrentProcess(String reason) {
+    // Bloqueia o processo em execução no núcleo 'core' (por E/S ou page fault)
+    public void blockCurrentProcess(int core, String reason) {
         synchronized (schedulerLock) {
-            if (runningProcess == null) return;
-            PCB pcb = runningProcess; 
+            if (runningProcess[core] == null) return;
+            PCB pcb = runningProcess[core]; 
+            if (pcb.removido) {
+                desaloca(pcb);   // rm pedido durante a fatia: sai em vez de bloquear
+                return;
+            }
+            contabilizaFatia(core, pcb);
             so.logger.log(pcb.getId(), pcb.getProgramName(), reason, "EXECUTANDO", "BLOQUEADO", pcb.getPageTable());
-            pcb.setState(ProcessState.BLOCKED);
-            blockedQueue.add(pcb);
-            System.out.println("Processo " + pcb.getId() + " BLOQUEADO. Motivo: " + reason);
-            runningProcess = null;
-            escalonar(true);
+            mudaEstado(pcb, ProcessState.BLOCKED);
+            if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.println("Processo " + pcb.getId() + " BLOQUEADO. Motivo: " + reason);
+            runningProcess[core] = null;
+            Conclusao adiada = pcb.conclusaoAdiada;
+            if (adiada != null) {
+                pcb.conclusaoAdiada = null;
+                desbloqueia(pcb, adiada.motivo, adiada.instante);
+            }
+            escalonar(core, true);
         }
     }
 
-    // Desbloqueia um processo e o coloca na fila de prontos
+    // Desbloqueia um processo e o coloca na fila de prontos do núcleo onde executou por último.
+    // Fora do schedulerLock (threads de dispositivo) a conclusão só é enfileirada e entregue ao
+    // núcleo como interrupção de E/S (ou o núcleo é acordado, se estiver ocioso): a transição é
+    // feita pelo tratador ou pelo próximo escalonamento, e a E/S nunca espera pela CPU.
     public void unblockProcess(PCB pcb, String reason) {
-        synchronized (schedulerLock) {
-            if (pcb == null) return;
-            so.logger.log(pcb.getId(), pcb.getProgramName(), reason, "BLOQUEADO", "PRONTO", pcb.getPageTable());
-            blockedQueue.remove(pcb);
-            pcb.setState(ProcessState.READY);
-            readyQueue.add(pcb);
-            System.out.println("Processo " + pcb.getId() + " DESBLOQUEADO. Motivo: " + reason);
-            if (so.getMode() == SisOp.ExecutionMode.THREADED) {
-                schedulerLock.notifyAll();
-            }
-            if (so.getMode() == SisOp.ExecutionMode.THREADED && runningProcess == null) {
-                System.out.print("> ");
-            }
+        if (pcb == null) return;
+        if (Thread.holdsLock(schedulerLock)) {
+            desbloqueia(pcb, reason, so.relogio.agora());
+            return;
         }
+        conclusoes.add(new Conclusao(pcb, reason, so.relogio.agora()));
+        int core = pcb.getCore();
+        if (runningProcess[core] != null) so.hw.cpus[core].sinalizaES();
+        acordaNucleo(core);
+        so.relogio.avisa();
     }
 
-    // Lista todos os processos do sistema
+    // Interrupção de E/S: aplica as conclusões que os dispositivos deixaram na fila
+    public void atendeConclusoes() {
+        synchronized (schedulerLock) { absorveConclusoes(); }
+    }
+
+    // Aplica as conclusões de E/S pendentes (sob o schedulerLock)
+    private void absorveConclusoes() {
+        Conclusao c;
+        while ((c = conclusoes.poll()) != null) {
+            desbloqueia(c.pcb, c.motivo, c.instante);
+        }
+    }
+
+    private void desbloqueia(PCB pcb, String reason, long instante) {
+        if (pcb.getState() == ProcessState.RUNNING) {
+            // a E/S terminou antes de o processo que a pediu ter bloqueado: a conclusão fica no
+            // PCB e é aplicada quando ele bloquear, sem voltar à fila (que deixaria os núcleos
+            // ociosos girando em escalonar enquanto ele executa em outro)
+            pcb.conclusaoAdiada = new Conclusao(pcb, reason, instante);
+            return;
+        }
+        if (pcb.getState() != ProcessState.BLOCKED) return;   // não está mais bloqueado (foi desalocado, por exemplo)
+        if (pcb.suspenso) {
+            // suspenso enquanto esperava: não volta a disputar a CPU, e o que acabou de
+            // ser carregado para ele é devolvido
+            so.logger.log(pcb.getId(), pcb.getProgramName(), reason, "BLOQUEADO", "SUSPENSO", pcb.getPageTable());
+            mudaEstado(pcb, ProcessState.SUSPENDED, instante);
+            so.loadController.liberaFrames(pcb);
+            return;
+        }
+        so.logger.log(pcb.getId(), pcb.getProgramName(), reason, "BLOQUEADO", "PRONTO", pcb.getPageTable());
+        mudaEstado(pcb, ProcessState.READY, instante);
+        enfileiraPronto(pcb, pcb.getCore(), false);
+        if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.println("Processo " + pcb.getId() + " DESBLOQUEADO. Motivo: " + reason);
+        acordaNucleo(pcb.getCore());
+        if (so.getMode() == SisOp.ExecutionMode.THREADED && !hasRunningProcess()) {
+            if (SisOp_Diag.debug(SisOp_Diag.ESCALONADOR)) System.out.print("> ");
+        }
+    }
+
+    // Lista todos os processos do sistema. Como stats e dump, lê um retrato da tabela sem a
+    // trava dos núcleos (os campos de cada processo podem estar no meio de uma fatia).
     public void listAllProcesses() {
-        synchronized (schedulerLock) {
-            System.out.println("Lista de todos os processos:");
-            if (pcbList.isEmpty()) {
-                System.out.println("Nenhum processo no sistema.");
-                return;
-            }
-            for (PCB pcb : pcbList) {
-                System.out.println("  ID: " + pcb.getId() + ", Nome: " + pcb.getProgramName() + ", Estado: " + pcb.getState() + ", PC: " + pcb.getPc());
-            }
+        StringBuilder sb = new StringBuilder("Lista de todos os processos (escalonador " + escalonadores.get(0).getName() + "):\n");
+        List<PCB> retrato = new ArrayList<>();
+        for (PCB pcb : tabela) retrato.add(pcb);
+        if (retrato.isEmpty()) sb.append("Nenhum processo no sistema.\n");
+        for (PCB pcb : retrato) {
+            sb.append("  ID: " + pcb.getId() + ", Nome: " + pcb.getProgramName() + ", Estado: " + pcb.getState() + ", PC: " + pcb.getPc() + ", Núcleo: " + pcb.getCore() + ", Prioridade: " + pcb.prioridade + "\n");
+        }
+        System.out.print(sb);
+    }
+
+    // Exibe os contadores de desempenho de cada processo (tempos em ticks do relógio)
+    public void listaEstatisticas() {
+        List<PCB> retrato = new ArrayList<>();
+        for (PCB pcb : tabela) retrato.add(pcb);
+        if (retrato.isEmpty()) {
+            System.out.println("Nenhum processo no sistema.");
+            return;
         }
+        long agora = so.relogio.agora();
+        StringBuilder sb = new StringBuilder(String.format("  %-4s %-14s %-10s %8s %6s %6s %6s %6s %6s %8s %8s %8s %8s %9s%n",
+            "ID", "NOME", "ESTADO", "INSTR", "QUANTA", "DESP", "F.MEN", "F.SWAP", "F.PROG", "PRONTO", "EXEC", "BLOQ", "RESPOSTA", "PRAZO"));
+        for (PCB pcb : retrato) {
+            sb.append(String.format("  %-4d %-14s %-10s %8d %6d %6d %6d %6d %6d %8d %8d %8d %8s %9s%n",
+                pcb.getId(), pcb.getProgramName(), pcb.getState(), pcb.getInstrucoes(), pcb.getQuanta(), pcb.getDespachos(),
+                pcb.getFaltasMenores(), pcb.getFaltasSwap(), pcb.getFaltasPrograma(),
+                pcb.getTempo(ProcessState.READY, agora), pcb.getTempo(ProcessState.RUNNING, agora), pcb.getTempo(ProcessState.BLOCKED, agora),
+                pcb.getResposta() < 0 ? "-" : Long.toString(pcb.getResposta()),
+                !pcb.temPrazo() ? "-" : pcb.getPrazo() + (pcb.perdeuPrazo(agora) ? "!" : "")));
+        }
+        System.out.print(sb);
     }
 
     // Exibe informações detalhadas de um processo
     public void dumpProcess(int id) {
-        synchronized (schedulerLock) {
-            PCB pcb = findPcbById(id);
-            if (pcb == null) {
-                System.out.println("Erro: Processo com ID " + id + " não encontrado.");
-                return;
-            }
-            System.out.println("--- Dump do Processo ID: " + pcb.getId() + " (" + pcb.getProgramName() + ") ---");
-            System.out.println("  Estado: " + pcb.getState() + ", PC Lógico: " + pcb.getPc());
-            System.out.println("  Tabela de Páginas (Total: " + pcb.getPageTable().length + " páginas):");
-            int i = 0;
-            for (Hardware.PageTableEntry entry : pcb.getPageTable()) {
-                String status;
-                if (entry.valid) {
-                    status = "Válida (Frame " + entry.frameNumber + ")";
-                } else if (entry.onDisk) {
-                    status = "Em Disco (Endereço " + entry.diskAddress + ")";
-                } else {
-                    status = "Inválida (Nunca carregada)";
-                }
-                System.out.println("    Página " + i + ": " + status);
-                i++;
+        PCB pcb = findPcbById(id);
+        if (pcb == null) {
+            System.out.println("Erro: Processo com ID " + id + " não encontrado.");
+            return;
+        }
+        StringBuilder sb = new StringBuilder("--- Dump do Processo ID: " + pcb.getId() + " (" + pcb.getProgramName() + ") ---\n");
+        sb.append("  Estado: " + pcb.getState() + ", PC Lógico: " + pcb.getPc() + "\n");
+        sb.append("  Tabela de Páginas (Total: " + pcb.getPageTable().length + " páginas):\n");
+        int i = 0;
+        for (Hardware.PageTableEntry entry : pcb.getPageTable()) {
+            String status;
+            if (entry.valid) {
+                status = "Válida (Frame " + entry.frameNumber + ")";
+            } else if (entry.onDisk) {
+                status = "Em Disco (Endereço " + entry.diskAddress + ")";
+            } else {
+                status = "Inválida (Nunca carregada)";
             }
-            System.out.println("--- Fim do Dump ---");
+            sb.append("    Página " + i + ": " + status + "\n");
+            i++;
         }
+        sb.append("--- Fim do Dump ---\n");
+        System.out.print(sb);
     }
-}
\ No newline at end of file
+}
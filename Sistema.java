@@ -1,4 +1,11 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.locks.LockSupport;
 
 // Sistema host: interface de comandos e controle principal
 public class Sistema {
@@ -6,8 +13,35 @@ public class Sistema {
     private Hardware.HW hw;
     private SisOp so;
     private Programs progs;
-    private final int TAM_MEM = 64;
-    private final int QUANTUM = 4;
+    private final int TAM_MEM = Integer.getInteger("memoria", 64);
+    private final int QUANTUM = Integer.getInteger("quantum", 4);
+    private final String ESCALONADOR_CPU = System.getProperty("escalonador", "rr");
+    private final int NIVEIS_MLFQ = Integer.getInteger("escalonador.niveis", 3);
+    private final int REFORCO_MLFQ = Integer.getInteger("escalonador.reforco", 2000);
+    private final int ENVELHECIMENTO = Integer.getInteger("escalonador.envelhecimento", 100);
+    private final String PRIORIDADES = System.getProperty("prioridades");
+    private final boolean ADMISSAO_EDF = Boolean.parseBoolean(System.getProperty("edf.admissao", "true"));
+    private final int NUM_CORES = Integer.getInteger("nucleos", 1);
+    private final int TAM_TLB = Integer.getInteger("tlb", 0);
+    private final int LIMIAR_JIT = Integer.getInteger("jit", 50);
+    private final String POLITICA_SUBSTITUICAO = System.getProperty("substituicao", "clock");
+    private final int SLOTS_SWAP = Integer.getInteger("swap", 256);
+    private final String ESCALONADOR_DISCO = System.getProperty("disco", "fcfs");
+    private final int JANELA_ANTECIPACAO = Integer.getInteger("antecipacao", 4);
+    private final boolean ANTECIPACAO_ADAPTATIVA = Boolean.parseBoolean(System.getProperty("antecipacao.adaptativa", "true"));
+    private final int LIMITE_FALTAS = Integer.getInteger("carga", 100);
+    private final int JANELA_CONJUNTO_TRABALHO = Integer.getInteger("carga.tau", 500);
+    private final boolean RELOGIO_VIRTUAL = System.getProperty("relogio", "real").equalsIgnoreCase("virtual");
+    private final int LATENCIA_DISCO = Integer.getInteger("latencia.disco", 200);
+    private final int LATENCIA_CONSOLE = Integer.getInteger("latencia.console", 1000);
+    private final String DISPOSITIVOS = System.getProperty("dispositivos");
+    private final String ARQUIVO_TRACE = System.getProperty("trace");
+    private final String DIAGNOSTICO = System.getProperty("diag");
+    private final boolean JMX = Boolean.parseBoolean(System.getProperty("jmx", "true"));
+    private final boolean JMX_PROCESSOS = Boolean.parseBoolean(System.getProperty("jmx.processos", "false"));
+    private final String ARQUIVO_LOTE = System.getProperty("lote");
+    private final String MODO_LOTE = System.getProperty("lote.modo", "threaded");
+    private final int LIMITE_LOTE = Integer.getInteger("lote.limite", 0);
     private Scanner mainScanner;
 
     private final Object ioConsoleLock = new Object();
@@ -17,19 +51,45 @@ public class Sistema {
 
     public Sistema() {
         this.mainScanner = new Scanner(System.in);
-        this.hw = new Hardware.HW(TAM_MEM, 16);
-        this.so = new SisOp(hw, this); 
+        if (DIAGNOSTICO != null && !SisOp_Diag.configura(DIAGNOSTICO)) {
+            System.out.println("Configuração de diagnóstico inválida: " + DIAGNOSTICO);
+        }
+        this.hw = new Hardware.HW(TAM_MEM, 16, NUM_CORES, TAM_TLB, LIMIAR_JIT);
+        this.so = new SisOp(hw, this, POLITICA_SUBSTITUICAO, SLOTS_SWAP); 
+        this.so.diskManager.setScheduler(SisOp.criaEscalonadorDisco(ESCALONADOR_DISCO));
+        this.so.processManager.setEscalonador(ESCALONADOR_CPU, Math.max(1, QUANTUM), NIVEIS_MLFQ, REFORCO_MLFQ, ENVELHECIMENTO);
+        this.so.processManager.setControleAdmissao(ESCALONADOR_CPU.equalsIgnoreCase("edf") && ADMISSAO_EDF);
+        if (PRIORIDADES != null && !this.so.processManager.setPrioridades(PRIORIDADES)) {
+            System.out.println("Configuração de prioridades inválida: " + PRIORIDADES);
+        }
+        this.so.vmManager.setAntecipacao(JANELA_ANTECIPACAO, ANTECIPACAO_ADAPTATIVA);
+        this.so.loadController.setLimites(LIMITE_FALTAS, JANELA_CONJUNTO_TRABALHO);
+        this.so.diskManager.setLatencia(LATENCIA_DISCO);
+        this.so.deviceManager.setLatencia(LATENCIA_CONSOLE);
+        if (DISPOSITIVOS != null && !this.so.deviceManager.configura(DISPOSITIVOS)) {
+            System.out.println("Configuração de dispositivos inválida: " + DISPOSITIVOS);
+        }
+        this.so.relogio.setVirtual(RELOGIO_VIRTUAL);
+        if (ARQUIVO_TRACE != null) this.so.trace.abre(ARQUIVO_TRACE);
+        this.so.estatisticas.setJmx(JMX, JMX_PROCESSOS);
         this.progs = new Programs();
     }
 
-    public Object getIoConsoleLock() { return ioConsoleLock; }
     // Indica que um processo está aguardando entrada do usuário
     public void startWaitingForIO(int pcbId) {
         this.isWaitingForIO = true;
         this.ioProcessId = pcbId;
         this.ioInputBuffer = null;
     }
-    public String getIoInputBuffer() { return this.ioInputBuffer; }
+
+    // Pede ao usuário um valor para o READ do processo e espera a linha digitada
+    public String leEntrada(int pcbId) throws InterruptedException {
+        synchronized (ioConsoleLock) {
+            startWaitingForIO(pcbId);
+            while (ioInputBuffer == null) ioConsoleLock.wait();
+            return ioInputBuffer;
+        }
+    }
 
     // Loop principal: processa comandos do usuário
     public void run() {
@@ -40,9 +100,10 @@ public class Sistema {
             try {
                 if (isWaitingForIO) {
                     System.out.print("\n>>> Dispositivo de E/S: Processo " + ioProcessId + " requisita um valor de entrada. Digite um número: ");
-                    this.ioInputBuffer = mainScanner.nextLine();
-                    this.isWaitingForIO = false;
+                    String linha = mainScanner.nextLine();
                     synchronized (ioConsoleLock) {
+                        this.ioInputBuffer = linha;
+                        this.isWaitingForIO = false;
                         ioConsoleLock.notifyAll();
                     }
                     Thread.sleep(50);
@@ -54,10 +115,15 @@ public class Sistema {
 
                     switch (command[0].toLowerCase()) {
                         case "new":
-                            if (command.length > 1) {
+                            if (command.length > 2) {
+                                try {
+                                    int id = so.processManager.criaProcesso(progs.retrieveProgram(command[1]), command[1], Long.parseLong(command[2]));
+                                    if (id < 0 && progs.retrieveProgram(command[1]) != null) System.out.println("Processo rejeitado: o prazo não é viável com a carga atual.");
+                                } catch (NumberFormatException e) { System.out.println("Prazo inválido."); }
+                            } else if (command.length > 1) {
                                 so.processManager.criaProcesso(progs.retrieveProgram(command[1]), command[1]);
                             } else {
-                                System.out.println("Uso: new <nomeDoPrograma>");
+                                System.out.println("Uso: new <nomeDoPrograma> [prazo]");
                             }
                             break;
                         case "rm":
@@ -67,6 +133,13 @@ public class Sistema {
                             else 
                                 System.out.println("Uso: rm <id>");
                             break;
+                        case "prio":
+                            if (command.length > 2)
+                                try { so.processManager.definePrioridade(Integer.parseInt(command[1]), Integer.parseInt(command[2])); }
+                                catch (NumberFormatException e) { System.out.println("ID ou prioridade inválidos."); }
+                            else
+                                System.out.println("Uso: prio <id> <prioridade>");
+                            break;
                         case "ps":
                             so.processManager.listAllProcesses();
                             break;
@@ -85,26 +158,75 @@ public class Sistema {
                                 System.out.println("Uso: dumpM <inicio> <fim>");
                             break;
                         case "traceon":
-                            hw.cpu.setDebug(true); 
+                            for (Hardware.CPU cpu : hw.cpus) cpu.setDebug(true);
                             System.out.println("Modo trace ativado.");
                             break;
                         case "traceoff":
-                            hw.cpu.setDebug(false); 
+                            for (Hardware.CPU cpu : hw.cpus) cpu.setDebug(false);
                             System.out.println("Modo trace desativado.");
                             break;
+                        case "mem":
+                            System.out.println("Frames livres: " + so.gm.getFreeFrameCount() + "/" + so.gm.getFrameCount()
+                                + ", política de substituição: " + so.gm.getPolicy().getName()
+                                + ", page faults: " + so.vmManager.getPageFaults()
+                                + ", vitimizações: " + so.vmManager.getVitimizacoes()
+                                + " (limpas: " + so.vmManager.getPaginasLimpas() + ")"
+                                + ", slots de swap livres: " + so.swap.getSlotsLivres() + "/" + so.swap.getQtdSlots());
+                            System.out.println("Disco (" + so.diskManager.getScheduler().getName() + "): "
+                                + so.diskManager.getTransferencias() + " transferências, "
+                                + so.diskManager.getPedidosAgrupados() + " pedidos agrupados, "
+                                + so.diskManager.getSavesCancelados() + " gravações canceladas");
+                            System.out.println("Leitura antecipada (janela " + so.vmManager.getJanelaMaxima() + "): "
+                                + so.vmManager.getPaginasAntecipadas() + " páginas antecipadas, "
+                                + so.vmManager.getAntecipacoesAproveitadas() + " faltas atendidas por antecipação");
+                            System.out.println("Controle de carga (limite " + so.loadController.getLimite() + " faltas/mil instruções): "
+                                + so.loadController.getSuspensoes() + " suspensões, " + so.loadController.getRetomadas() + " retomadas, "
+                                + so.loadController.getQtdSuspensos() + " suspensos agora");
+                            break;
+                        case "relogio":
+                            System.out.println("Relógio " + (so.relogio.isVirtual() ? "virtual" : "real")
+                                + ": instante " + so.relogio.agora()
+                                + (so.relogio.isVirtual() ? ", " + so.relogio.getSaltos() + " saltos" : " ms"));
+                            break;
+                        case "stats":
+                            mostraEstatisticas();
+                            break;
+                        case "diag":
+                            if (command.length > 1) {
+                                String spec = command.length > 2 ? command[1] + "=" + command[2] : command[1];
+                                if (!SisOp_Diag.configura(spec)) {
+                                    System.out.println("Uso: diag [todos|" + SisOp_Diag.nomesSubsistemas() + "] <" + SisOp_Diag.nomesNiveis() + ">");
+                                    break;
+                                }
+                            }
+                            System.out.println("Diagnóstico: " + SisOp_Diag.descreve());
+                            break;
+                        case "quiet":
+                            SisOp_Diag.silencia();
+                            System.out.println("Mensagens de diagnóstico desligadas (use 'diag debug' para religar).");
+                            break;
+                        case "tlb":
+                            mostraTLB(command.length > 1 && command[1].equalsIgnoreCase("reset"));
+                            break;
                         case "help":
-                            System.out.println("Comandos: new <prog>, rm <id>, ps, dump <id>, dumpm <ini> <fim>, execall, thread2, traceon, traceoff, exit");
+                            System.out.println("Comandos: new <prog> [prazo], rm <id>, ps, prio <id> <prioridade>, dump <id>, dumpm <ini> <fim>, mem, stats, tlb [reset], relogio, diag [subsistema] <nivel>, quiet, execall, thread2 [atrasoMs], traceon, traceoff, exit");
                             break;
                         case "exit":
+                            mostraLatencia(so);
                             so.logger.close();
+                            so.trace.fecha();
                             mainScanner.close();
                             System.exit(0);
                             return;
                         case "execall":
-                            so.processManager.execAllBlocking(QUANTUM);
+                            so.processManager.execAllBlocking();
                             break;
                         case "thread2":
-                            so.activateThreadedMode(QUANTUM);
+                            if (command.length > 1)
+                                try { so.activateThreadedMode(Integer.parseInt(command[1])); }
+                                catch (NumberFormatException e) { System.out.println("Atraso inválido."); }
+                            else
+                                so.activateThreadedMode();
                             break;
                         default:
                             System.out.println("Comando desconhecido: " + command[0]);
@@ -121,46 +243,325 @@ public class Sistema {
         }
     }
 
+    // Exibe os contadores de desempenho do sistema e de cada processo
+    private void mostraEstatisticas() {
+        SisOp.Estatisticas e = so.estatisticas;
+        String unidade = so.relogio.isVirtual() ? "ticks" : "ms";
+        System.out.println("Estatísticas no instante " + e.getInstante() + " " + unidade + ": "
+            + e.getProcessosAtivos() + " processos ativos (" + e.getProcessosProntos() + " prontos, " + e.getProcessosExecutando() + " executando, "
+            + e.getProcessosBloqueados() + " bloqueados, " + e.getProcessosSuspensos() + " suspensos), " + e.getProcessosTerminados() + " terminados");
+        System.out.println(String.format("  Instruções: %d, quanta esgotados: %d, trocas de contexto: %d, utilização da CPU: %.1f%%",
+            e.getInstrucoes(), e.getQuanta(), e.getTrocasContexto(), e.getUtilizacaoCpu()));
+        System.out.println(String.format("  Faltas de página: %d menores, %d do swap, %d do programa (%.2f por mil instruções)",
+            e.getFaltasMenores(), e.getFaltasSwap(), e.getFaltasPrograma(), e.getTaxaFaltas()));
+        System.out.println(String.format("  Fila de disco: %d pedidos; swap: %d/%d slots (%.1f%%)",
+            e.getFilaDisco(), e.getSlotsSwapUsados(), so.swap.getQtdSlots(), e.getOcupacaoSwap()));
+        System.out.println("  Dispositivos de E/S: " + so.deviceManager.descreve());
+        if (e.getProcessosTerminados() > 0) {
+            System.out.println(String.format("  Terminados: retorno médio %.1f, resposta média %.1f, espera média %.1f %s",
+                e.getRetornoMedio(), e.getRespostaMedia(), e.getEsperaMedia(), unidade));
+        }
+        mostraLatencia(so);
+        so.processManager.listaEstatisticas();
+    }
+
+    // Percentis de latência dos processos terminados e cumprimento dos prazos
+    static void mostraLatencia(SisOp so) {
+        SisOp.Estatisticas e = so.estatisticas;
+        if (e.getProcessosTerminados() == 0 && so.processManager.getRejeitados() == 0) return;
+        String unidade = so.relogio.isVirtual() ? "ticks" : "ms";
+        System.out.println("  Latência (" + unidade + "): resposta p50 " + e.getRespostaP50() + ", p99 " + e.getRespostaP99()
+            + "; retorno p50 " + e.getRetornoP50() + ", p99 " + e.getRetornoP99());
+        long comPrazo = e.getProcessosComPrazo();
+        if (comPrazo > 0 || e.getRejeitadosAdmissao() > 0) {
+            System.out.println(String.format("  Prazos: %d processos com prazo terminados, %d perdidos (%.1f%%), %d rejeitados na admissão",
+                comPrazo, e.getPrazosPerdidos(), comPrazo == 0 ? 0.0 : 100.0 * e.getPrazosPerdidos() / comPrazo, e.getRejeitadosAdmissao()));
+        }
+    }
+
+    // Exibe os contadores de acerto/falta da TLB de cada núcleo
+    private void mostraTLB(boolean zerar) {
+        for (Hardware.CPU cpu : hw.cpus) {
+            Hardware.TLB tlb = cpu.getTLB();
+            if (tlb == null) {
+                System.out.println("Núcleo " + cpu.getId() + ": TLB desligada.");
+                continue;
+            }
+            long total = tlb.getHits() + tlb.getMisses();
+            double taxa = total == 0 ? 0.0 : 100.0 * tlb.getHits() / total;
+            System.out.println(String.format("Núcleo %d: TLB %d entradas, hits=%d, misses=%d, taxa de acerto=%.2f%%",
+                cpu.getId(), tlb.size(), tlb.getHits(), tlb.getMisses(), taxa));
+            if (zerar) tlb.resetCounters();
+        }
+    }
+
+    // Modo em lote: executa o arquivo de carga sem interação, imprime o relatório e encerra.
+    // Sai com 0 se todos os processos terminaram, 1 se o tempo limite esgotou e 2 em erro no arquivo.
+    private void executaLote() {
+        boolean threaded = MODO_LOTE.equalsIgnoreCase("threaded");
+        if (!threaded && !MODO_LOTE.equalsIgnoreCase("bloqueante")) {
+            System.out.println("Modo de lote inválido: " + MODO_LOTE + " (use threaded ou bloqueante).");
+            System.exit(2);
+        }
+        if (DIAGNOSTICO == null) SisOp_Diag.configura("erro,es=info");
+        Lote lote = new Lote(so, progs);
+        int status;
+        try {
+            lote.carrega(ARQUIVO_LOTE);
+            status = lote.executa(threaded, LIMITE_LOTE) ? 0 : 1;
+            lote.relatorio(ARQUIVO_LOTE, threaded);
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("Erro no arquivo de carga " + ARQUIVO_LOTE + ": " + e.getMessage());
+            status = 2;
+        }
+        so.logger.close();
+        so.trace.fecha();
+        System.exit(status);
+    }
+
     public static void main(String args[]) {
         Sistema s = new Sistema();
+        if (s.ARQUIVO_LOTE != null) {
+            s.executaLote();
+        }
         s.run();
     }
 
-    // Thread do escalonador para modo de execução contínua
+    // Thread do escalonador de um núcleo para modo de execução contínua
     public static class SchedulerExecutor implements Runnable {
         private SisOp so;
-        private int quantum;
+        private int core;
+        private int atrasoMs;
 
-        public SchedulerExecutor(SisOp so, int quantum) {
+        public SchedulerExecutor(SisOp so) {
+            this(so, 0, 0);
+        }
+
+        // atrasoMs > 0 limita a velocidade (uma pausa por instrução), útil para demonstrações
+        public SchedulerExecutor(SisOp so, int core, int atrasoMs) {
             this.so = so;
-            this.quantum = quantum;
+            this.core = core;
+            this.atrasoMs = atrasoMs;
         }
 
-        // Loop de escalonamento em modo threaded
+        // Loop de escalonamento em modo threaded. Sem processo para executar, o núcleo dorme
+        // (park) até o gerenciador de processos acordá-lo com trabalho novo.
         @Override
         public void run() {
+            SisOp_ProcessManager pm = so.processManager;
+            pm.registraExecutor(core, Thread.currentThread());
             while (!Thread.currentThread().isInterrupted()) {
                 try {
-                    synchronized (so.processManager.getSchedulerLock()) {
-                        while (so.processManager.getReadyQueue().isEmpty() && so.processManager.getRunningProcess() == null) {
-                            so.processManager.getSchedulerLock().wait();
-                        }
-                        if (so.processManager.getRunningProcess() == null && !so.processManager.getReadyQueue().isEmpty()) {
-                            so.processManager.escalonar(false);
+                    if (pm.getRunningProcess(core) == null && pm.hasReadyProcess()) {
+                        synchronized (pm.getSchedulerLock()) {
+                            if (pm.getRunningProcess(core) == null && pm.hasReadyProcess()) {
+                                pm.escalonar(core, false);
+                            }
                         }
                     }
-                    
-                    if (so.processManager.getRunningProcess() != null) {
-                        so.hw.cpu.step(this.quantum);
+
+                    SisOp_ProcessManager.PCB atual = pm.getRunningProcess(core);
+                    if (atual != null) {
+                        executaFatia(atual);
+                    } else {
+                        LockSupport.park(pm);
                     }
-                    
-                    Thread.sleep(100);
                 } catch (InterruptedException e) {
                     System.out.println("Thread do escalonador interrompida. Encerrando.");
                     Thread.currentThread().interrupt();
                 }
             }
         }
+
+        // Executa instruções em sequência até o fim do quantum, bloqueio/término do processo ou interrupção
+        private void executaFatia(SisOp_ProcessManager.PCB atual) throws InterruptedException {
+            Hardware.CPU cpu = so.hw.cpus[core];
+            do {
+                cpu.step(atual.getQuantum());
+                if (atrasoMs > 0) Thread.sleep(atrasoMs);
+            } while (!cpu.isStopped() && !cpu.hasPendingInterrupt() && so.processManager.getRunningProcess(core) == atual);
+        }
+    }
+
+    // Execução em lote: cria os processos de um arquivo de carga nos instantes de chegada, com
+    // valores roteirizados para os READ, e executa até todos terminarem. Cada linha do arquivo
+    // descreve um grupo de processos iguais ('#' inicia comentário):
+    //     programa [quantidade [chegada [v1,v2,...]]] [prazo=N] [periodo=N]
+    // A chegada é medida no relógio do sistema (ms, ou ticks no relógio virtual) a partir do
+    // início do lote; os valores são as entradas dos READ de cada processo do grupo, na ordem.
+    // prazo é o prazo de conclusão relativo à chegada; com periodo, os processos do grupo chegam
+    // um a cada período e, sem prazo explícito, o prazo de cada um é o próprio período.
+    public static class Lote {
+        // Um grupo de processos do arquivo de carga
+        private static class Grupo {
+            final String programa;
+            final int quantidade;
+            final long chegada;
+            final List<Integer> entradas;
+            final long prazo;
+            Grupo(String programa, int quantidade, long chegada, List<Integer> entradas, long prazo) {
+                this.programa = programa;
+                this.quantidade = quantidade;
+                this.chegada = chegada;
+                this.entradas = entradas;
+                this.prazo = prazo;
+            }
+        }
+
+        private final SisOp so;
+        private final Programs progs;
+        private final List<Grupo> grupos = new ArrayList<>();
+        private volatile boolean chegadasConcluidas = false;
+        private volatile int criados = 0;
+        private volatile int rejeitados = 0;
+        private long inicio, fim, inicioReal, fimReal;
+
+        public Lote(SisOp so, Programs progs) {
+            this.so = so;
+            this.progs = progs;
+        }
+
+        // Lê o arquivo de carga; erros de formato indicam a linha
+        public void carrega(String arquivo) throws IOException {
+            List<String> linhas = Files.readAllLines(Paths.get(arquivo));
+            for (int i = 0; i < linhas.size(); i++) {
+                String linha = linhas.get(i);
+                int comentario = linha.indexOf('#');
+                if (comentario >= 0) linha = linha.substring(0, comentario);
+                linha = linha.trim();
+                if (linha.isEmpty()) continue;
+                List<String> campos = new ArrayList<>();
+                long prazo = -1, periodo = 0;
+                for (String campo : linha.split("\\s+")) {
+                    String[] kv = campo.split("=", 2);
+                    try {
+                        if (kv.length == 2 && kv[0].equalsIgnoreCase("prazo")) prazo = Long.parseLong(kv[1]);
+                        else if (kv.length == 2 && kv[0].equalsIgnoreCase("periodo")) periodo = Long.parseLong(kv[1]);
+                        else if (kv.length == 2) throw new IllegalArgumentException("linha " + (i + 1) + ": opção desconhecida '" + kv[0] + "'");
+                        else campos.add(campo);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("linha " + (i + 1) + ": número inválido em '" + campo + "'");
+                    }
+                }
+                if (campos.isEmpty() || prazo < -1 || periodo < 0) {
+                    throw new IllegalArgumentException("linha " + (i + 1) + ": formato inválido");
+                }
+                if (progs.retrieveProgram(campos.get(0)) == null) {
+                    throw new IllegalArgumentException("linha " + (i + 1) + ": programa desconhecido '" + campos.get(0) + "'");
+                }
+                try {
+                    int quantidade = campos.size() > 1 ? Integer.parseInt(campos.get(1)) : 1;
+                    long chegada = campos.size() > 2 ? Long.parseLong(campos.get(2)) : 0;
+                    if (quantidade < 0 || chegada < 0) {
+                        throw new IllegalArgumentException("linha " + (i + 1) + ": quantidade e chegada não podem ser negativas");
+                    }
+                    List<Integer> entradas = new ArrayList<>();
+                    for (int c = 3; c < campos.size(); c++) {
+                        for (String v : campos.get(c).split(",")) {
+                            if (!v.isEmpty()) entradas.add(Integer.parseInt(v));
+                        }
+                    }
+                    if (periodo > 0) {
+                        // um processo por período, cada um com o período como prazo (se não houver outro)
+                        for (int k = 0; k < quantidade; k++) {
+                            grupos.add(new Grupo(campos.get(0), 1, chegada + k * periodo, entradas, prazo >= 0 ? prazo : periodo));
+                        }
+                    } else {
+                        grupos.add(new Grupo(campos.get(0), quantidade, chegada, entradas, prazo));
+                    }
+                } catch (NumberFormatException e) {
+                    throw new IllegalArgumentException("linha " + (i + 1) + ": número inválido (" + e.getMessage() + ")");
+                }
+            }
+            grupos.sort(Comparator.comparingLong(g -> g.chegada));
+        }
+
+        // Executa o lote até todos os processos terminarem; retorna false se o limite de tempo
+        // real (em segundos, 0 = sem limite) esgotou antes
+        public boolean executa(boolean threaded, int limiteSegundos) {
+            SisOp_ProcessManager pm = so.processManager;
+            so.deviceManager.setInterativo(false);
+            inicio = so.relogio.agora();
+            inicioReal = System.nanoTime();
+            long prazoReal = limiteSegundos > 0 ? inicioReal + limiteSegundos * 1_000_000_000L : Long.MAX_VALUE;
+            if (threaded) so.activateThreadedMode();
+            Thread chegadas = new Thread(this::chegadas, "Chegadas");
+            chegadas.setDaemon(true);
+            chegadas.start();
+
+            boolean completo = true;
+            while (!chegadasConcluidas || pm.getQtdProcessos() > 0) {
+                if (System.nanoTime() > prazoReal) {
+                    System.out.println("Tempo limite do lote esgotado (" + limiteSegundos + " s): " + pm.getQtdProcessos() + " processos não terminaram.");
+                    completo = false;
+                    break;
+                }
+                if (!threaded && (pm.hasRunningProcess() || pm.hasReadyProcess())) {
+                    pm.rodadaBloqueante();
+                    continue;
+                }
+                LockSupport.parkNanos(10_000_000L);
+                if (Thread.interrupted()) break;
+            }
+            fim = so.relogio.agora();
+            fimReal = System.nanoTime();
+            return completo;
+        }
+
+        // Thread de chegadas: cria cada grupo no seu instante. No relógio virtual a espera é um
+        // prazo, como o dos dispositivos, e o tempo salta até ele quando o sistema fica ocioso.
+        private void chegadas() {
+            SisOp.Relogio relogio = so.relogio;
+            Object lock = so.processManager.getSchedulerLock();
+            relogio.ocupa();
+            for (Grupo g : grupos) {
+                long falta = inicio + g.chegada - relogio.agora();
+                if (falta > 0) relogio.espera(falta);
+                Hardware.Word[] programa = progs.retrieveProgram(g.programa);
+                for (int i = 0; i < g.quantidade; i++) {
+                    // o roteiro é registrado antes que o processo possa ser despachado
+                    synchronized (lock) {
+                        int id = so.processManager.criaProcesso(programa, g.programa, g.prazo);
+                        if (id < 0) {
+                            rejeitados++;
+                            continue;
+                        }
+                        criados++;
+                        if (!g.entradas.isEmpty()) so.deviceManager.roteiriza(id, g.entradas);
+                    }
+                }
+            }
+            chegadasConcluidas = true;
+            relogio.libera();
+        }
+
+        // Resumo do lote: makespan, vazão, retorno médio e faltas de página
+        public void relatorio(String arquivo, boolean threaded) {
+            SisOp.Estatisticas e = so.estatisticas;
+            boolean virtual = so.relogio.isVirtual();
+            String unidade = virtual ? "ticks" : "ms";
+            long makespan = fim - inicio;
+            double segundos = Math.max(1e-9, (fimReal - inicioReal) / 1e9);
+            long instrucoes = e.getInstrucoes();
+            long terminados = e.getProcessosTerminados();
+            System.out.println("=== Relatório do lote " + arquivo + " (modo " + (threaded ? "THREADED" : "BLOQUEANTE")
+                + ", relógio " + (virtual ? "virtual" : "real") + ", " + so.hw.cpus.length + " núcleo(s)) ===");
+            System.out.println("  Processos: " + criados + " criados, " + terminados + " terminados"
+                + (rejeitados > 0 ? ", " + rejeitados + " rejeitados" : ""));
+            System.out.println(String.format("  Makespan: %d %s (%.3f s de tempo real)", makespan, unidade, segundos));
+            System.out.println(String.format("  Vazão (tempo real): %.2f processos/s, %.0f instruções/s",
+                terminados / segundos, instrucoes / segundos));
+            if (virtual && makespan > 0) {
+                System.out.println(String.format("  Vazão (tempo simulado): %.3f processos e %.1f instruções por mil ticks",
+                    1000.0 * terminados / makespan, 1000.0 * instrucoes / makespan));
+            }
+            System.out.println(String.format("  Retorno médio: %.1f %s, resposta média: %.1f %s, espera média: %.1f %s",
+                e.getRetornoMedio(), unidade, e.getRespostaMedia(), unidade, e.getEsperaMedia(), unidade));
+            System.out.println(String.format("  Instruções: %d; faltas de página: %d (%d menores, %d do swap, %d do programa)",
+                instrucoes, e.getFaltasMenores() + e.getFaltasSwap() + e.getFaltasPrograma(),
+                e.getFaltasMenores(), e.getFaltasSwap(), e.getFaltasPrograma()));
+            mostraLatencia(so);
+        }
     }
 
     // Programas disponíveis para execução
@@ -446,6 +847,20 @@ public class Sistema {
                     new Hardware.Word(Hardware.CPU.Opcode.DATA, -1, -1, -1),
                     new Hardware.Word(Hardware.CPU.Opcode.DATA, -1, -1, -1),
                     new Hardware.Word(Hardware.CPU.Opcode.DATA, -1, -1, -1)
+                }),
+
+                // lê um valor do dispositivo de E/S 1 e o escreve de volta no mesmo dispositivo
+                // (r8 = operação + 10 * dispositivo)
+                new Program("ecoES", new Hardware.Word[] { 
+                    new Hardware.Word(Hardware.CPU.Opcode.LDI, 8, -1, 11), 
+                    new Hardware.Word(Hardware.CPU.Opcode.LDI, 9, -1, 8), 
+                    new Hardware.Word(Hardware.CPU.Opcode.SYSCALL, -1, -1, -1), 
+                    new Hardware.Word(Hardware.CPU.Opcode.LDI, 8, -1, 12), 
+                    new Hardware.Word(Hardware.CPU.Opcode.SYSCALL, -1, -1, -1), 
+                    new Hardware.Word(Hardware.CPU.Opcode.STOP, -1, -1, -1), 
+                    new Hardware.Word(Hardware.CPU.Opcode.DATA, -1, -1, -1), 
+                    new Hardware.Word(Hardware.CPU.Opcode.DATA, -1, -1, -1), 
+                    new Hardware.Word(Hardware.CPU.Opcode.DATA, -1, -1, -1) 
                 })
             };
         }
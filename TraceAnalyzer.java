@@ -0,0 +1,266 @@
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Analisador do rastro binário gravado com -Dtrace=arquivo.
+// Uso: java -cp bin TraceAnalyzer <rastro> [--real] [--chrome saida.json]
+// Mostra, por processo, tempo de retorno, espera na fila de prontos, tempo bloqueado e faltas,
+// além da profundidade da fila de disco. Com --chrome exporta a linha do tempo no formato de
+// eventos do Chrome (abrir em chrome://tracing ou ui.perfetto.dev). Os tempos são em ticks do
+// relógio virtual; com --real, em milissegundos de relógio de parede.
+public class TraceAnalyzer {
+
+    private static final String[] ESTADOS = nomesEstados();
+    private static final String[] INTERRUPCOES = nomesInterrupcoes();
+    private static final String[] PEDIDOS_DISCO = { "LOAD_PROG", "LOAD_SWAP", "SAVE_SWAP" };
+
+    // Evento lido do arquivo
+    static class Evento {
+        int tipo, pid, pagina, frame, info, extra;
+        double t;
+    }
+
+    // Estatísticas acumuladas de um processo
+    static class Processo {
+        int pid;
+        double criacao = -1, termino = -1;
+        double pronto, bloqueado, executando, suspenso;
+        int estado = -1, nucleo = -1;
+        double desde;
+        long faltas, vitimado, syscalls, despachos;
+
+        Processo(int pid) { this.pid = pid; }
+    }
+
+    public static void main(String[] args) throws IOException {
+        String arquivo = null, chrome = null;
+        boolean real = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--real")) real = true;
+            else if (args[i].equals("--chrome") && i + 1 < args.length) chrome = args[++i];
+            else arquivo = args[i];
+        }
+        if (arquivo == null) {
+            System.out.println("Uso: java TraceAnalyzer <rastro> [--real] [--chrome saida.json]");
+            return;
+        }
+        List<Evento> eventos = le(arquivo, real);
+        resumo(eventos, real);
+        if (chrome != null) {
+            exportaChrome(eventos, chrome);
+            System.out.println("Linha do tempo exportada em " + chrome);
+        }
+    }
+
+    // Lê e valida o cabeçalho; depois lê os registros de largura fixa até o fim do arquivo
+    private static List<Evento> le(String arquivo, boolean real) throws IOException {
+        List<Evento> eventos = new ArrayList<>();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(arquivo)))) {
+            if (in.readLong() != SisOp.Trace.MAGICO) throw new IOException("não é um rastro do simulador: " + arquivo);
+            int tamanho = in.readInt();
+            in.readInt();
+            byte[] sobra = new byte[Math.max(0, tamanho - SisOp.Trace.TAM_REGISTRO)];
+            while (true) {
+                Evento e = new Evento();
+                try {
+                    e.tipo = in.readInt();
+                } catch (EOFException fim) {
+                    break;
+                }
+                e.pid = in.readInt();
+                e.pagina = in.readInt();
+                e.frame = in.readInt();
+                e.info = in.readInt();
+                e.extra = in.readInt();
+                long virtual = in.readLong();
+                long nanos = in.readLong();
+                in.readFully(sobra);
+                e.t = real ? nanos / 1e6 : virtual;
+                eventos.add(e);
+            }
+        }
+        // com vários núcleos os eventos podem ter sido gravados fora de ordem por poucos ticks
+        eventos.sort((a, b) -> Double.compare(a.t, b.t));
+        return eventos;
+    }
+
+    // Fecha o intervalo em que o processo esteve no estado atual
+    private static void acumula(Processo p, double t) {
+        double d = t - p.desde;
+        if (p.estado == SisOp_ProcessManager.ProcessState.READY.ordinal()) p.pronto += d;
+        else if (p.estado == SisOp_ProcessManager.ProcessState.BLOCKED.ordinal()) p.bloqueado += d;
+        else if (p.estado == SisOp_ProcessManager.ProcessState.RUNNING.ordinal()) p.executando += d;
+        else if (p.estado == SisOp_ProcessManager.ProcessState.SUSPENDED.ordinal()) p.suspenso += d;
+        p.desde = t;
+    }
+
+    // Imprime as estatísticas por processo e do disco
+    private static void resumo(List<Evento> eventos, boolean real) {
+        Map<Integer, Processo> processos = new TreeMap<>();
+        List<Processo> encerrados = new ArrayList<>();   // ids reaproveitados: vidas anteriores
+        int fila = 0, filaMax = 0;
+        double filaArea = 0, filaDesde = 0;
+        long pedidos = 0, cancelados = 0, interrupcoes = 0;
+        double fim = eventos.isEmpty() ? 0 : eventos.get(eventos.size() - 1).t;
+        double inicio = eventos.isEmpty() ? 0 : eventos.get(0).t;
+        filaDesde = inicio;
+
+        for (Evento e : eventos) {
+            Processo p = e.pid >= 0 ? processos.computeIfAbsent(e.pid, Processo::new) : null;
+            switch (e.tipo) {
+                case SisOp.Trace.CRIACAO:
+                    if (p.termino >= 0) {
+                        encerrados.add(p);
+                        p = new Processo(e.pid);
+                        processos.put(e.pid, p);
+                    }
+                    p.criacao = e.t;
+                    p.estado = e.info;
+                    p.desde = e.t;
+                    break;
+                case SisOp.Trace.TRANSICAO:
+                    if (p.criacao < 0) p.criacao = e.t;
+                    if (p.estado >= 0) acumula(p, e.t);
+                    p.estado = e.info;
+                    p.desde = e.t;
+                    if (e.info == SisOp_ProcessManager.ProcessState.RUNNING.ordinal()) p.despachos++;
+                    if (e.info == SisOp_ProcessManager.ProcessState.TERMINATED.ordinal() && p.termino < 0) p.termino = e.t;
+                    break;
+                case SisOp.Trace.FALTA:
+                    p.faltas++;
+                    break;
+                case SisOp.Trace.VITIMA:
+                    p.vitimado++;
+                    break;
+                case SisOp.Trace.SYSCALL:
+                    if (p != null) p.syscalls++;
+                    break;
+                case SisOp.Trace.INTERRUPCAO:
+                    interrupcoes++;
+                    break;
+                case SisOp.Trace.DISCO_PEDIDO:
+                case SisOp.Trace.DISCO_FIM:
+                case SisOp.Trace.DISCO_CANCELADO:
+                    if (e.tipo == SisOp.Trace.DISCO_PEDIDO) pedidos++;
+                    if (e.tipo == SisOp.Trace.DISCO_CANCELADO) cancelados++;
+                    filaArea += fila * (e.t - filaDesde);
+                    filaDesde = e.t;
+                    fila = e.extra;
+                    filaMax = Math.max(filaMax, fila);
+                    break;
+            }
+        }
+        filaArea += fila * (fim - filaDesde);
+
+        String unidade = real ? "ms" : "ticks";
+        System.out.println(String.format("%d eventos, de %.0f a %.0f %s", eventos.size(), inicio, fim, unidade));
+        System.out.println(String.format("%-5s %12s %12s %12s %12s %12s %8s %8s %8s",
+            "ID", "RETORNO", "EXECUTANDO", "PRONTO", "BLOQUEADO", "SUSPENSO", "FALTAS", "VITIMADO", "DESPACHOS"));
+        List<Processo> todos = new ArrayList<>(encerrados);
+        todos.addAll(processos.values());
+        todos.sort(Comparator.comparingDouble((Processo p) -> p.criacao).thenComparingInt(p -> p.pid));
+        for (Processo p : todos) {
+            if (p.estado >= 0 && p.termino < 0) acumula(p, fim);
+            String retorno = p.termino >= 0 && p.criacao >= 0 ? String.format("%.0f", p.termino - p.criacao) : "-";
+            System.out.println(String.format("%-5d %12s %12.0f %12.0f %12.0f %12.0f %8d %8d %8d",
+                p.pid, retorno, p.executando, p.pronto, p.bloqueado, p.suspenso, p.faltas, p.vitimado, p.despachos));
+        }
+        double duracao = fim - inicio;
+        System.out.println(String.format("Disco: %d pedidos, %d gravações canceladas, fila máxima %d, fila média %.2f",
+            pedidos, cancelados, filaMax, duracao > 0 ? filaArea / duracao : 0.0));
+        System.out.println("Interrupções: " + interrupcoes);
+    }
+
+    // Exporta no formato de eventos do Chrome: uma trilha por processo com os intervalos de
+    // estado, uma trilha por núcleo com quem executava, faltas como eventos instantâneos e a
+    // fila de disco como contador. O tempo vira microssegundos (1 tick = 1 ms).
+    private static void exportaChrome(List<Evento> eventos, String saida) throws IOException {
+        Map<Integer, Processo> abertos = new TreeMap<>();
+        try (PrintWriter out = new PrintWriter(saida, "UTF-8")) {
+            out.println("{\"traceEvents\":[");
+            out.print("{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":0,\"args\":{\"name\":\"Núcleos\"}}");
+            out.print(",\n{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":1,\"args\":{\"name\":\"Processos\"}}");
+            out.print(",\n{\"name\":\"process_name\",\"ph\":\"M\",\"pid\":2,\"args\":{\"name\":\"Disco\"}}");
+            for (Evento e : eventos) {
+                long ts = Math.round(e.t * 1000);
+                switch (e.tipo) {
+                    case SisOp.Trace.CRIACAO:
+                    case SisOp.Trace.TRANSICAO: {
+                        Processo p = abertos.get(e.pid);
+                        if (p == null) {
+                            p = new Processo(e.pid);
+                            abertos.put(e.pid, p);
+                            out.print(String.format(",\n{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":%d,\"args\":{\"name\":\"P%d\"}}", e.pid, e.pid));
+                        } else if (p.estado >= 0) {
+                            fechaIntervalo(out, p, ts);
+                        }
+                        p.estado = e.info;
+                        p.nucleo = e.extra;
+                        p.desde = ts;
+                        if (e.info == SisOp_ProcessManager.ProcessState.TERMINATED.ordinal()) p.estado = -1;
+                        break;
+                    }
+                    case SisOp.Trace.FALTA:
+                        out.print(String.format(",\n{\"name\":\"falta pág. %d\",\"ph\":\"i\",\"s\":\"t\",\"ts\":%d,\"pid\":1,\"tid\":%d}", e.pagina, ts, e.pid));
+                        break;
+                    case SisOp.Trace.VITIMA:
+                        out.print(String.format(",\n{\"name\":\"vitimado pág. %d (frame %d)\",\"ph\":\"i\",\"s\":\"t\",\"ts\":%d,\"pid\":1,\"tid\":%d}", e.pagina, e.frame, ts, e.pid));
+                        break;
+                    case SisOp.Trace.SYSCALL:
+                        out.print(String.format(",\n{\"name\":\"syscall %d\",\"ph\":\"i\",\"s\":\"t\",\"ts\":%d,\"pid\":1,\"tid\":%d}", e.info, ts, e.pid));
+                        break;
+                    case SisOp.Trace.INTERRUPCAO:
+                        String nome = e.info >= 0 && e.info < INTERRUPCOES.length ? INTERRUPCOES[e.info] : "int" + e.info;
+                        out.print(String.format(",\n{\"name\":\"%s\",\"ph\":\"i\",\"s\":\"t\",\"ts\":%d,\"pid\":0,\"tid\":%d}", nome, ts, e.extra));
+                        break;
+                    case SisOp.Trace.DISCO_PEDIDO:
+                    case SisOp.Trace.DISCO_FIM:
+                    case SisOp.Trace.DISCO_CANCELADO:
+                        out.print(String.format(",\n{\"name\":\"fila\",\"ph\":\"C\",\"ts\":%d,\"pid\":2,\"args\":{\"pedidos\":%d}}", ts, e.extra));
+                        if (e.tipo == SisOp.Trace.DISCO_FIM) {
+                            String op = e.info >= 0 && e.info < PEDIDOS_DISCO.length ? PEDIDOS_DISCO[e.info] : "op" + e.info;
+                            out.print(String.format(",\n{\"name\":\"%s P%d pág. %d\",\"ph\":\"i\",\"s\":\"t\",\"ts\":%d,\"pid\":2,\"tid\":0}", op, e.pid, e.pagina, ts));
+                        }
+                        break;
+                }
+            }
+            long fim = eventos.isEmpty() ? 0 : Math.round(eventos.get(eventos.size() - 1).t * 1000);
+            for (Processo p : abertos.values()) {
+                if (p.estado >= 0) fechaIntervalo(out, p, fim);
+            }
+            out.println("\n]}");
+        }
+    }
+
+    // Emite o intervalo (evento "X") do estado atual do processo e, se executava, também na trilha do núcleo
+    private static void fechaIntervalo(PrintWriter out, Processo p, long ts) {
+        long dur = ts - (long) p.desde;
+        String estado = p.estado < ESTADOS.length ? ESTADOS[p.estado] : "?";
+        out.print(String.format(",\n{\"name\":\"%s\",\"ph\":\"X\",\"ts\":%d,\"dur\":%d,\"pid\":1,\"tid\":%d}", estado, (long) p.desde, dur, p.pid));
+        if (p.estado == SisOp_ProcessManager.ProcessState.RUNNING.ordinal() && p.nucleo >= 0) {
+            out.print(String.format(",\n{\"name\":\"P%d\",\"ph\":\"X\",\"ts\":%d,\"dur\":%d,\"pid\":0,\"tid\":%d}", p.pid, (long) p.desde, dur, p.nucleo));
+        }
+    }
+
+    private static String[] nomesEstados() {
+        SisOp_ProcessManager.ProcessState[] v = SisOp_ProcessManager.ProcessState.values();
+        String[] nomes = new String[v.length];
+        for (int i = 0; i < v.length; i++) nomes[i] = v[i].name();
+        return nomes;
+    }
+
+    private static String[] nomesInterrupcoes() {
+        Hardware.CPU.Interrupts[] v = Hardware.CPU.Interrupts.values();
+        String[] nomes = new String[v.length];
+        for (int i = 0; i < v.length; i++) nomes[i] = v[i].name();
+        return nomes;
+    }
+}
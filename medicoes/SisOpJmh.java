@@ -0,0 +1,74 @@
+package medicoes;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// As medições de Benchmarks.java sob o JMH (fork próprio, aquecimento e estatística do JMH).
+// Uso: mvn -B package && java -jar target/benchmarks.jar [-p medicao=nome1,nome2]
+// O JMH não aceita classes no pacote padrão, então as operações vêm de Benchmarks.operacoes()
+// por reflexão. O resultado "unidades" é o trabalho por segundo (instruções, traduções, ...),
+// na mesma unidade da saída de Benchmarks.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djmh.shutdownTimeout=0")
+public class SisOpJmh {
+
+    @Param({
+        "interpretador/fatorial",
+        "interpretador-sem-jit/fatorial",
+        "interpretador/PB",
+        "interpretador-sem-jit/PB",
+        "mmu/toPhysical-tlb16",
+        "mmu/toPhysical-sem-tlb",
+        "gm/vitima-clock-65536",
+        "gm/vitima-aging-65536",
+        "utilities/loadPage",
+        "escalonador/preempcao-e-despacho-8"
+    })
+    public String medicao;
+
+    private LongSupplier op;
+
+    // Unidades de trabalho feitas na iteração (o JMH as reporta por segundo)
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Unidades {
+        public long unidades;
+
+        @Setup(Level.Iteration)
+        public void zera() {
+            unidades = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    @SuppressWarnings("unchecked")
+    public void prepara() throws ReflectiveOperationException {
+        Map<String, LongSupplier> ops = (Map<String, LongSupplier>) Class.forName("Benchmarks").getMethod("operacoes").invoke(null);
+        op = ops.get(medicao);
+        if (op == null) throw new IllegalArgumentException("Medição desconhecida: " + medicao + ". Disponíveis: " + ops.keySet());
+    }
+
+    @Benchmark
+    public void executa(Unidades u) {
+        u.unidades += op.getAsLong();
+    }
+}